@@ -0,0 +1,36 @@
+package com.example.simplephototool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command building in {@link HardwareEncoderFactory#getEncoderArguments}, run
+ * once per stream start and restart for every camera.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncoderArgumentsBenchmark {
+
+    @Param({"SOFTWARE", "NVIDIA_NVENC", "INTEL_QSV", "AMD_AMF"})
+    public HardwareEncoderFactory.EncoderType encoder;
+
+    @Benchmark
+    public List<String> encoderArguments() {
+        return HardwareEncoderFactory.getEncoderArguments(encoder);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.simplephototool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-snapshot string work: {@link CameraStrategy#generateFilename} and
+ * {@link Settings#parseResolution}, both called for every camera on every trigger.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilenameBenchmark {
+
+    private CameraStrategy strategy;
+    private Camera camera;
+
+    @Setup
+    public void setup() {
+        strategy = new LinuxCameraStrategy();
+        camera = new Camera("Station 3 / Left cam", "/dev/video2");
+    }
+
+    @Benchmark
+    public String generateFilename() {
+        return strategy.generateFilename(camera, "camera-{id}_{timestamp}.jpg");
+    }
+
+    @Benchmark
+    public int[] parseResolution() {
+        return Settings.parseResolution("1920x1080");
+    }
+
+    @Benchmark
+    public int[] parseInvalidResolution() {
+        return Settings.parseResolution("auto");
+    }
+}
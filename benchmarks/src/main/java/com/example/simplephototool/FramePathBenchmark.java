@@ -0,0 +1,104 @@
+package com.example.simplephototool;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The raw preview path in {@link PreviewTile}: read one frame from the ffmpeg
+ * pipe, clone it for the FX thread, and upload it with setPixels.
+ * The pipe is simulated with an in-memory stream holding a few frames.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// Software pipeline: WritableImage works without a display
+@Fork(value = 1, jvmArgsAppend = "-Dprism.order=sw")
+@State(Scope.Thread)
+public class FramePathBenchmark {
+
+    private static final int FRAMES_IN_PIPE = 8;
+
+    @Param({"640x480", "1280x720"})
+    public String resolution;
+
+    @Param({"bgra", "rgb24"})
+    public String pixelFormat;
+
+    private int width;
+    private int height;
+    private int bytesPerPixel;
+    private byte[] pipeContent;
+    private byte[] frameBuffer;
+    private InputStream pipe;
+    private WritableImage image;
+    private PixelFormat<ByteBuffer> format;
+
+    @Setup
+    public void setup() {
+        int[] size = Settings.parseResolution(resolution);
+        width = size[0];
+        height = size[1];
+        bytesPerPixel = "bgra".equals(pixelFormat) ? 4 : 3;
+        frameBuffer = new byte[width * height * bytesPerPixel];
+        pipeContent = new byte[frameBuffer.length * FRAMES_IN_PIPE];
+        for (int i = 0; i < pipeContent.length; i++) {
+            pipeContent[i] = (byte) i;
+        }
+        image = new WritableImage(width, height);
+        format = "bgra".equals(pixelFormat)
+                ? PixelFormat.getByteBgraPreInstance()
+                : PixelFormat.getByteRgbInstance();
+    }
+
+    @Setup(Level.Iteration)
+    public void openPipe() {
+        pipe = new BufferedInputStream(new ByteArrayInputStream(pipeContent));
+    }
+
+    private void nextFrame() throws IOException {
+        if (PreviewTile.readFully(pipe, frameBuffer) < frameBuffer.length) {
+            pipe = new BufferedInputStream(new ByteArrayInputStream(pipeContent));
+            PreviewTile.readFully(pipe, frameBuffer);
+        }
+    }
+
+    @Benchmark
+    public byte[] read() throws IOException {
+        nextFrame();
+        return frameBuffer;
+    }
+
+    @Benchmark
+    public byte[] readAndClone() throws IOException {
+        nextFrame();
+        return frameBuffer.clone();
+    }
+
+    @Benchmark
+    public WritableImage readCloneAndUpload() throws IOException {
+        nextFrame();
+        byte[] copy = frameBuffer.clone();
+        image.getPixelWriter().setPixels(0, 0, width, height, format, copy, 0, width * bytesPerPixel);
+        return image;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.simplephototool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HLS file-serving handler under concurrent clients. A temp directory holds a
+ * playlist and one segment of a realistic size; each JMH thread is one player.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class HlsServerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        /** One second of 640x480 H.264 at 15 fps is roughly 100-250 KB. */
+        @Param({"131072"})
+        public int segmentBytes;
+
+        Path directory;
+        HlsFileServer server;
+        int port;
+
+        @Setup
+        public void start() throws IOException {
+            directory = Files.createTempDirectory("spt_bench_hls_");
+            Files.writeString(directory.resolve(HlsFileServer.PLAYLIST_NAME),
+                    "#EXTM3U\n#EXT-X-VERSION:3\n#EXT-X-TARGETDURATION:1\n#EXT-X-MEDIA-SEQUENCE:0\n"
+                            + "#EXTINF:1.000000,\nsegment_000.ts\n");
+            Files.write(directory.resolve("segment_000.ts"), new byte[segmentBytes]);
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            Camera camera = new Camera("Benchmark", "bench:hls");
+            server = new HlsFileServer(camera.getName(), directory, CameraMetrics.forCamera(camera));
+            server.start(port);
+        }
+
+        @TearDown
+        public void stop() {
+            server.stop();
+            File[] files = directory.toFile().listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.toFile().delete();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        HttpClient http;
+        HttpRequest playlist;
+        HttpRequest segment;
+
+        @Setup
+        public void create(Server server) {
+            http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String base = "http://127.0.0.1:" + server.port + "/";
+            playlist = HttpRequest.newBuilder(URI.create(base + HlsFileServer.PLAYLIST_NAME)).build();
+            segment = HttpRequest.newBuilder(URI.create(base + "segment_000.ts")).build();
+        }
+    }
+
+    @Benchmark
+    public byte[] playlist(Client client) throws Exception {
+        return client.http.send(client.playlist, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public byte[] segment(Client client) throws Exception {
+        return client.http.send(client.segment, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+}
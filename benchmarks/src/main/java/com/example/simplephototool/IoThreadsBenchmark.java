@@ -0,0 +1,129 @@
+package com.example.simplephototool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output readers on virtual versus platform threads, as {@link IoThreads} creates
+ * them. Each camera is a {@code cat} process with a stdout and a stderr reader,
+ * like an ffmpeg stream. One operation writes a line to every camera and waits until
+ * every reader has seen its echo, so the score is the delivery latency at that
+ * camera count. The thread count and RSS with all readers blocked are printed at
+ * the end of each trial.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IoThreadsBenchmark {
+
+    @Param({"32"})
+    public int cameras;
+
+    @Param({"true", "false"})
+    public boolean virtual;
+
+    private static final byte[] LINE = "frame=1\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final List<Process> processes = new ArrayList<>();
+    private final List<OutputStream> inputs = new ArrayList<>();
+    private final List<Thread> readers = new ArrayList<>();
+    private volatile CountDownLatch echoed;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        for (int i = 0; i < cameras; i++) {
+            Process process = new ProcessBuilder("cat").start();
+            processes.add(process);
+            inputs.add(process.getOutputStream());
+            readers.add(IoThreads.start("bench-stdout-" + i, () -> readLines(process.getInputStream(), true), virtual));
+            readers.add(IoThreads.start("bench-stderr-" + i, () -> readLines(process.getErrorStream(), false), virtual));
+        }
+    }
+
+    private void readLines(InputStream stream, boolean count) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.US_ASCII))) {
+            while (reader.readLine() != null) {
+                if (count) {
+                    echoed.countDown();
+                }
+            }
+        } catch (IOException e) {
+            // Process ended
+        }
+    }
+
+    @Benchmark
+    public void deliverLineToAllCameras() throws Exception {
+        CountDownLatch latch = new CountDownLatch(cameras);
+        echoed = latch;
+        for (OutputStream input : inputs) {
+            input.write(LINE);
+            input.flush();
+        }
+        if (!latch.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Readers did not deliver within 5 s");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.out.println();
+        System.out.println("[IoThreadsBenchmark] virtual=" + virtual + " cameras=" + cameras
+                + " platform threads=" + threads + " rss=" + rssMegabytes() + " MB");
+        for (OutputStream input : inputs) {
+            input.close();
+        }
+        for (Process process : processes) {
+            process.waitFor(2, TimeUnit.SECONDS);
+            process.destroyForcibly();
+        }
+        for (Thread reader : readers) {
+            reader.join(2000);
+        }
+        processes.clear();
+        inputs.clear();
+        readers.clear();
+    }
+
+    private static long rssMegabytes() throws IOException {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", "")) / 1024;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,407 @@
+package com.example.simplephototool;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Multi-camera soak and load test. Starts raw and HLS previews on synthetic or
+ * replayed cameras through {@link PreviewManager}, fires snapshot batches at a fixed
+ * rate, samples JVM and ffmpeg resources while it runs and checks for leftovers
+ * after shutdown. Writes a report and exits with status 1 if any threshold fails.
+ * <p>
+ * Needs ffmpeg on the PATH and a display for the JavaFX toolkit (use Xvfb on a
+ * headless box). Cameras come from {@link SyntheticCameraStrategy} unless
+ * {@code -Dspt.camera.strategy} says otherwise. Example:
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.simplephototool.SoakHarness \
+ *     --raw=8 --hls=8 --duration=600 --snapshot-interval=5 --report=soak-report.txt
+ * </pre>
+ * Resource figures come from /proc and are reported as -1 on other platforms.
+ */
+public class SoakHarness {
+
+    /** Options and their defaults; any of them can be given as --name=value. */
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+        Map.entry("raw", "4"),
+        Map.entry("hls", "4"),
+        Map.entry("duration", "300"),
+        Map.entry("warmup", "20"),
+        Map.entry("snapshot-interval", "5"),
+        Map.entry("sample-interval", "5"),
+        Map.entry("report", "soak-report.txt"),
+        Map.entry("min-fps", "10"),
+        Map.entry("max-p95-ms", "3000"),
+        Map.entry("max-rss-growth-mb", "150"),
+        Map.entry("max-heap-growth-mb", "100"),
+        Map.entry("max-thread-growth", "10"),
+        Map.entry("max-fd-growth", "20")
+    );
+
+    /**
+     * One resource sample. Sizes are in kilobytes, -1 when unavailable.
+     */
+    record Sample(long elapsedMillis, long jvmRssKb, long heapUsedKb, int threads, int fds,
+                  int ffmpegProcesses, long ffmpegRssKb) {
+    }
+
+    private final Map<String, String> options;
+    private final List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> snapshotLatencies = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> failures = new ArrayList<>();
+    private long startNanos;
+
+    SoakHarness(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: SoakHarness [--name=value ...], options: " + new TreeSet<>(DEFAULTS.keySet()));
+                System.exit(2);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!DEFAULTS.containsKey(name)) {
+                System.err.println("Unknown option --" + name + ", options: " + new TreeSet<>(DEFAULTS.keySet()));
+                System.exit(2);
+            }
+            options.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+        boolean passed = new SoakHarness(options).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    /**
+     * Runs the soak test and writes the report.
+     *
+     * @return true if every threshold passed
+     */
+    boolean run() throws Exception {
+        int rawCount = intOption("raw");
+        int hlsCount = intOption("hls");
+        if (System.getProperty(CameraStrategyFactory.STRATEGY_PROPERTY) == null) {
+            System.setProperty(CameraStrategyFactory.STRATEGY_PROPERTY, "synthetic");
+        }
+        if (System.getProperty(SyntheticCameraStrategy.COUNT_PROPERTY) == null) {
+            System.setProperty(SyntheticCameraStrategy.COUNT_PROPERTY, String.valueOf(rawCount + hlsCount));
+        }
+
+        CountDownLatch toolkit = new CountDownLatch(1);
+        Platform.startup(toolkit::countDown);
+        toolkit.await();
+        Platform.setImplicitExit(false);
+
+        List<CameraDevice> devices = CameraStrategyFactory.getStrategy().detectDevices();
+        if (devices.size() < rawCount + hlsCount) {
+            throw new IllegalStateException("Need " + (rawCount + hlsCount) + " cameras but the strategy reports "
+                + devices.size());
+        }
+        Path snapshotDirectory = Files.createTempDirectory("spt_soak_snapshots_");
+        Settings settings = new Settings();
+        settings.setSnapshotOutputDirectory(snapshotDirectory.toString());
+        settings.setFilenamePattern("{id}_{timestamp}_" + System.nanoTime() + ".jpg");
+
+        List<Camera> hlsCameras = new ArrayList<>();
+        List<Camera> rawCameras = new ArrayList<>();
+        for (int i = 0; i < rawCount + hlsCount; i++) {
+            CameraDevice device = devices.get(i);
+            Camera camera = new Camera(device.getDisplayName(), device.getDeviceId());
+            camera.setPreviewEnabled(i < hlsCount);
+            (i < hlsCount ? hlsCameras : rawCameras).add(camera);
+        }
+        List<Camera> allCameras = new ArrayList<>(hlsCameras);
+        allCameras.addAll(rawCameras);
+
+        int baselineTempDirs = countTempDirectories();
+        startNanos = System.nanoTime();
+        Sample baseline = sample();
+        samples.add(baseline);
+
+        PreviewManager manager = onFxThread(() -> {
+            ObservableList<Camera> cameras = FXCollections.observableArrayList(allCameras);
+            PreviewManager previews = new PreviewManager(cameras, settings);
+            previews.startAllPreviews();
+            for (Camera camera : rawCameras) {
+                previews.getTile(camera.getDeviceId()).startPreview();
+            }
+            return previews;
+        });
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "SoakHarness-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> samples.add(sample()),
+            intOption("sample-interval"), intOption("sample-interval"), TimeUnit.SECONDS);
+
+        TimeUnit.SECONDS.sleep(intOption("warmup"));
+        // One unmeasured batch, so pools created on first use are part of the post-warmup baseline
+        SnapshotService.captureSnapshots(allCameras, settings);
+        // Collect first so heap growth compares live data, not garbage
+        System.gc();
+        Sample afterWarmup = sample();
+        Map<String, Long> framesAtWarmup = new HashMap<>();
+        for (Camera camera : allCameras) {
+            framesAtWarmup.put(camera.getDeviceId(), CameraMetrics.forCamera(camera).getFramesRead());
+        }
+        long measureStart = System.nanoTime();
+
+        scheduler.scheduleAtFixedRate(() -> {
+            long triggered = System.nanoTime();
+            SnapshotService.captureSnapshots(allCameras, settings);
+            snapshotLatencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - triggered));
+        }, 0, intOption("snapshot-interval"), TimeUnit.SECONDS);
+
+        TimeUnit.SECONDS.sleep(intOption("duration"));
+        scheduler.shutdown();
+        scheduler.awaitTermination(60, TimeUnit.SECONDS);
+        double measuredSeconds = (System.nanoTime() - measureStart) / 1e9;
+        Sample beforeShutdown = sample();
+
+        StringBuilder report = new StringBuilder();
+        report.append("SimplePhotoTool soak report\n");
+        report.append("Strategy: ").append(CameraStrategyFactory.getStrategy().getPlatformName())
+            .append(", raw previews: ").append(rawCount).append(", HLS previews: ").append(hlsCount)
+            .append(", measured: ").append(String.format("%.0f", measuredSeconds)).append(" s")
+            .append(", I/O threads: ").append(IoThreads.isVirtual() ? "virtual" : "platform").append("\n\n");
+
+        reportCameras(report, hlsCameras, rawCameras, framesAtWarmup, measuredSeconds);
+        reportSnapshots(report);
+
+        onFxThread(() -> {
+            manager.shutdown();
+            return null;
+        });
+        Sample afterShutdown = awaitProcessesExit(Duration.ofSeconds(15));
+        Platform.exit();
+
+        reportResources(report, baseline, afterWarmup, beforeShutdown, afterShutdown);
+        int leftoverTempDirs = countTempDirectories() - baselineTempDirs;
+        report.append("\nLeftovers after shutdown\n");
+        report.append("  ffmpeg processes: ").append(afterShutdown.ffmpegProcesses()).append('\n');
+        report.append("  HLS temp directories: ").append(leftoverTempDirs).append('\n');
+        check(afterShutdown.ffmpegProcesses() == 0, "ffmpeg processes left running after shutdown: "
+            + afterShutdown.ffmpegProcesses());
+        check(leftoverTempDirs <= 0, "HLS temp directories left behind: " + leftoverTempDirs);
+
+        deleteRecursively(snapshotDirectory);
+
+        report.append("\nResult: ").append(failures.isEmpty() ? "PASS" : "FAIL").append('\n');
+        for (String failure : failures) {
+            report.append("  - ").append(failure).append('\n');
+        }
+        Files.writeString(Path.of(options.get("report")), report);
+        System.out.println(report);
+        return failures.isEmpty();
+    }
+
+    private void reportCameras(StringBuilder report, List<Camera> hlsCameras, List<Camera> rawCameras,
+                               Map<String, Long> framesAtWarmup, double measuredSeconds) {
+        double minFps = Double.parseDouble(options.get("min-fps"));
+        report.append("Per-camera frame rate (ffmpeg-reported fps, delivered raw fps)\n");
+        for (Camera camera : hlsCameras) {
+            CameraMetrics metrics = CameraMetrics.forCamera(camera);
+            report.append(String.format("  %-32s HLS  %6.1f%n", camera.getName(), metrics.getFps()));
+            check(metrics.getFps() >= minFps, camera.getName() + " HLS fps " + metrics.getFps() + " < " + minFps);
+        }
+        for (Camera camera : rawCameras) {
+            CameraMetrics metrics = CameraMetrics.forCamera(camera);
+            double delivered = (metrics.getFramesRead() - framesAtWarmup.get(camera.getDeviceId())) / measuredSeconds;
+            report.append(String.format("  %-32s raw  %6.1f %6.1f%n", camera.getName(), metrics.getFps(), delivered));
+            check(delivered >= minFps, camera.getName() + " delivered fps " + String.format("%.1f", delivered)
+                + " < " + minFps);
+        }
+    }
+
+    private void reportSnapshots(StringBuilder report) {
+        List<Long> sorted;
+        synchronized (snapshotLatencies) {
+            sorted = new ArrayList<>(snapshotLatencies);
+        }
+        Collections.sort(sorted);
+        SnapshotServiceMXBean stats = SnapshotService.getStatistics();
+        report.append("\nSnapshot triggers: ").append(sorted.size())
+            .append(", captures ok: ").append(stats.getSnapshotsSucceeded())
+            .append(", failed: ").append(stats.getSnapshotsFailed()).append('\n');
+        long p95 = percentile(sorted, 95);
+        report.append(String.format("  latency ms p50 %d  p90 %d  p95 %d  p99 %d  max %d%n",
+            percentile(sorted, 50), percentile(sorted, 90), p95, percentile(sorted, 99), percentile(sorted, 100)));
+        long maxP95 = Long.parseLong(options.get("max-p95-ms"));
+        check(!sorted.isEmpty(), "no snapshot batch completed");
+        check(p95 <= maxP95, "snapshot p95 " + p95 + " ms > " + maxP95 + " ms");
+        check(stats.getSnapshotsFailed() == 0, stats.getSnapshotsFailed() + " snapshot captures failed");
+    }
+
+    private void reportResources(StringBuilder report, Sample baseline, Sample afterWarmup,
+                                 Sample beforeShutdown, Sample afterShutdown) {
+        report.append("\nResources          elapsed_s  jvm_rss_mb  heap_mb  threads  fds  ffmpeg  ffmpeg_rss_mb\n");
+        appendSample(report, "baseline", baseline);
+        appendSample(report, "after warmup", afterWarmup);
+        List<Sample> all;
+        synchronized (samples) {
+            all = new ArrayList<>(samples);
+        }
+        Sample peak = all.stream().max(Comparator.comparingLong(Sample::jvmRssKb)).orElse(beforeShutdown);
+        appendSample(report, "peak jvm rss", peak);
+        appendSample(report, "before shutdown", beforeShutdown);
+        appendSample(report, "after shutdown", afterShutdown);
+
+        // Growth is measured from the end of warmup so start-up allocation and the
+        // long-lived pools (session starter, supervisor, snapshot executor) do not count.
+        // Threads and fds must neither accumulate during the run nor outlive shutdown.
+        long rssGrowthMb = (beforeShutdown.jvmRssKb() - afterWarmup.jvmRssKb()) / 1024;
+        long heapGrowthMb = (afterShutdown.heapUsedKb() - afterWarmup.heapUsedKb()) / 1024;
+        int threadGrowth = Math.max(beforeShutdown.threads(), afterShutdown.threads()) - afterWarmup.threads();
+        int fdGrowth = Math.max(beforeShutdown.fds(), afterShutdown.fds()) - afterWarmup.fds();
+        if (afterWarmup.jvmRssKb() >= 0) {
+            check(rssGrowthMb <= intOption("max-rss-growth-mb"), "JVM RSS grew " + rssGrowthMb + " MB during the run");
+        }
+        check(heapGrowthMb <= intOption("max-heap-growth-mb"), "heap grew " + heapGrowthMb + " MB after GC");
+        check(threadGrowth <= intOption("max-thread-growth"), threadGrowth + " more threads than after warmup");
+        if (afterWarmup.fds() >= 0) {
+            check(fdGrowth <= intOption("max-fd-growth"), fdGrowth + " more file descriptors than after warmup");
+        }
+    }
+
+    private static void appendSample(StringBuilder report, String label, Sample sample) {
+        report.append(String.format("  %-16s %9d %11d %8d %8d %4d %7d %14d%n", label,
+            sample.elapsedMillis() / 1000, mb(sample.jvmRssKb()), mb(sample.heapUsedKb()), sample.threads(),
+            sample.fds(), sample.ffmpegProcesses(), mb(sample.ffmpegRssKb())));
+    }
+
+    private static long mb(long kb) {
+        return kb < 0 ? -1 : kb / 1024;
+    }
+
+    private void check(boolean condition, String failure) {
+        if (!condition) {
+            failures.add(failure);
+        }
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    /**
+     * Waits for ffmpeg children to exit after shutdown, then takes a sample after a GC.
+     */
+    private Sample awaitProcessesExit(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline && !ffmpegProcesses().isEmpty()) {
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+        System.gc();
+        return sample();
+    }
+
+    /**
+     * Samples JVM and ffmpeg child resources.
+     */
+    Sample sample() {
+        List<ProcessHandle> ffmpeg = ffmpegProcesses();
+        long ffmpegRss = 0;
+        for (ProcessHandle process : ffmpeg) {
+            long rss = readRssKb(process.pid());
+            ffmpegRss = rss < 0 || ffmpegRss < 0 ? -1 : ffmpegRss + rss;
+        }
+        String[] fds = new File("/proc/self/fd").list();
+        return new Sample(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+            readRssKb(ProcessHandle.current().pid()),
+            ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024,
+            ManagementFactory.getThreadMXBean().getThreadCount(),
+            fds != null ? fds.length : -1,
+            ffmpeg.size(),
+            ffmpegRss);
+    }
+
+    private static List<ProcessHandle> ffmpegProcesses() {
+        return ProcessHandle.current().descendants()
+            .filter(ProcessHandle::isAlive)
+            .filter(p -> p.info().command().map(c -> c.contains("ffmpeg")).orElse(false))
+            .toList();
+    }
+
+    /**
+     * Reads VmRSS from /proc/[pid]/status.
+     *
+     * @return Resident set size in kilobytes, or -1 if unavailable
+     */
+    private static long readRssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux, or the process has already exited
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the HLS directories FFmpegStreamService creates in the temp directory.
+     */
+    private static int countTempDirectories() throws IOException {
+        try (Stream<Path> entries = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return (int) entries.filter(p -> p.getFileName().toString().startsWith("spt_hls_")).count();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.walk(directory)) {
+            for (Path path : entries.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Runs a task on the FX thread and waits for its result.
+     */
+    private static <T> T onFxThread(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get(60, TimeUnit.SECONDS);
+    }
+}
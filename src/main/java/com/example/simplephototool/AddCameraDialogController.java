@@ -1,11 +1,13 @@
 package com.example.simplephototool;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 
 import java.util.List;
 
@@ -27,18 +29,32 @@ public class AddCameraDialogController {
 
     private Camera result = null;
 
+    private final DeviceInventory.Listener inventoryListener =
+        (added, removed) -> Platform.runLater(() -> showDevices(DeviceInventory.getInstance().getDevices()));
+
     @FXML
     public void initialize() {
-        // Load available camera devices
-        List<CameraDevice> devices = CameraDeviceDetector.detectDevices();
-        deviceComboBox.setItems(FXCollections.observableArrayList(devices));
-        
-        // Select first device by default
-        if (!devices.isEmpty()) {
-            deviceComboBox.getSelectionModel().selectFirst();
-            // Set default label based on device name
-            updateDefaultLabel();
+        // Show the cached device list at once; scanning happens in the background
+        DeviceInventory inventory = DeviceInventory.getInstance();
+        if (inventory.isLoaded()) {
+            showDevices(inventory.getDevices());
+        } else {
+            deviceComboBox.setPromptText("Detecting cameras...");
         }
+        inventory.getDevicesAsync().thenAccept(devices -> Platform.runLater(() -> showDevices(devices)));
+        
+        // Follow hotplug while the dialog is open
+        inventory.addListener(inventoryListener);
+        deviceComboBox.sceneProperty().addListener((obs, oldScene, scene) -> {
+            if (scene != null) {
+                scene.windowProperty().addListener((o, oldWindow, window) -> {
+                    if (window != null) {
+                        window.addEventHandler(WindowEvent.WINDOW_HIDDEN,
+                            e -> inventory.removeListener(inventoryListener));
+                    }
+                });
+            }
+        });
         
         // Update default label when device selection changes
         deviceComboBox.setOnAction(e -> updateDefaultLabel());
@@ -50,6 +66,32 @@ public class AddCameraDialogController {
         );
     }
 
+    /**
+     * Replaces the device choices, keeping the selected device if it is still present.
+     */
+    private void showDevices(List<CameraDevice> detected) {
+        List<CameraDevice> devices = CameraDeviceDetector.withPlaceholder(detected);
+        CameraDevice selected = deviceComboBox.getSelectionModel().getSelectedItem();
+        deviceComboBox.setItems(FXCollections.observableArrayList(devices));
+        
+        CameraDevice keep = null;
+        if (selected != null) {
+            for (CameraDevice device : devices) {
+                if (device.getDeviceId().equals(selected.getDeviceId())) {
+                    keep = device;
+                }
+            }
+        }
+        if (keep != null) {
+            deviceComboBox.getSelectionModel().select(keep);
+        } else {
+            // Select first device by default
+            deviceComboBox.getSelectionModel().selectFirst();
+            // Set default label based on device name
+            updateDefaultLabel();
+        }
+    }
+
     private void updateDefaultLabel() {
         CameraDevice selected = deviceComboBox.getSelectionModel().getSelectedItem();
         if (selected != null && cameraLabelField.getText().isEmpty()) {
@@ -11,6 +11,14 @@ import java.io.IOException;
 public class Application extends javafx.application.Application {
     @Override
     public void start(Stage stage) throws IOException {
+        // Probe hardware encoders off the FX thread so previews never wait on it
+        HardwareEncoderFactory.detectAsync();
+        // Prometheus endpoint, only when -Dspt.metrics.port is set
+        MetricsEndpoint.startIfConfigured();
+        // Scan cameras in the background and follow hotplug; supervised streams react to it
+        DeviceInventory.getInstance().addListener(FFmpegSupervisor.getInstance());
+        DeviceInventory.getInstance().start();
+        
         FXMLLoader fxmlLoader = new FXMLLoader(Application.class.getResource("main-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 320, 240);
         
@@ -31,9 +39,9 @@ public class Application extends javafx.application.Application {
             }
         });
         
-        // Handle window close to stop preview
+        // Handle window close to stop all previews together
         stage.setOnCloseRequest(event -> {
-            controller.stopPreview();
+            controller.shutdown();
         });
         
         stage.setTitle("Simple Photo Tool");
@@ -41,6 +49,14 @@ public class Application extends javafx.application.Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        MetricsEndpoint.stop();
+        DeviceInventory.getInstance().stop();
+        // Anything still running, e.g. snapshots in flight; the shutdown hook covers other exits
+        FFmpegProcesses.terminateAll(2000);
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -1,5 +1,6 @@
 package com.example.simplephototool;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,14 +15,24 @@ public class CameraDeviceDetector {
      */
     public static List<CameraDevice> detectDevices() {
         CameraStrategy strategy = CameraStrategyFactory.getStrategy();
-        List<CameraDevice> devices = strategy.detectDevices();
+        List<CameraDevice> devices = withPlaceholder(strategy.detectDevices());
         
-        // If no devices found, add a default placeholder
+        System.out.println("Detected " + devices.size() + " camera(s)");
+        return devices;
+    }
+    
+    /**
+     * Gets a device list to offer the user: the detected devices, or a default
+     * placeholder if none were found.
+     *
+     * @param detected Detected devices
+     * @return A modifiable list with at least one device
+     */
+    public static List<CameraDevice> withPlaceholder(List<CameraDevice> detected) {
+        List<CameraDevice> devices = new ArrayList<>(detected);
         if (devices.isEmpty()) {
             devices.add(new CameraDevice("0", "Default Camera"));
         }
-        
-        System.out.println("Detected " + devices.size() + " camera(s)");
         return devices;
     }
 }
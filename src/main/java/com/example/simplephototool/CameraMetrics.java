@@ -0,0 +1,396 @@
+package com.example.simplephototool;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Live per-camera metrics fed by FFmpeg {@code -progress} output.
+ * One instance exists per device ID. Reader threads publish immutable
+ * {@link FFmpegProgress} snapshots, so updates and reads never take a lock.
+ * Each instance is registered as a {@link CameraSessionMXBean}.
+ */
+public class CameraMetrics implements CameraSessionMXBean {
+
+    /**
+     * The FFmpeg processes a camera can have running.
+     */
+    public enum Pipeline {
+        STREAM, PREVIEW, SNAPSHOT
+    }
+
+    /**
+     * Lifecycle of the camera's HLS stream.
+     */
+    public enum State {
+        STOPPED, STARTING, RUNNING, FAILED
+    }
+
+    private static final String MBEAN_TYPE = "CameraSession";
+    private static final ConcurrentMap<String, CameraMetrics> registry = new ConcurrentHashMap<>();
+
+    private final String deviceId;
+    private volatile String cameraName;
+    private final AtomicReferenceArray<FFmpegProgress> progress =
+            new AtomicReferenceArray<>(Pipeline.values().length);
+    private final AtomicLong progressUpdates = new AtomicLong();
+    private final AtomicLong framesRead = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private final AtomicLong bytesPiped = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+    private final AtomicLong quarantines = new AtomicLong();
+    private volatile boolean quarantined;
+    private volatile State state = State.STOPPED;
+    private volatile long lastSnapshotLatencyMillis = -1;
+    private volatile String encoderType = "";
+    private volatile String inputMode = "";
+    private volatile long inputBytesPerSecond = -1;
+    private volatile long ffmpegPid = -1;
+    private final LatencyHistogram snapshotLatency = new LatencyHistogram();
+    private final LongAdder segmentsServed = new LongAdder();
+    private final LongAdder hlsBytesServed = new LongAdder();
+
+    private CameraMetrics(String deviceId, String cameraName) {
+        this.deviceId = deviceId;
+        this.cameraName = cameraName;
+    }
+
+    /**
+     * Gets the metrics for a camera, creating them on first use.
+     *
+     * @param camera The camera
+     * @return Metrics shared by all pipelines of that camera
+     */
+    public static CameraMetrics forCamera(Camera camera) {
+        CameraMetrics metrics = registry.get(camera.getDeviceId());
+        if (metrics == null) {
+            CameraMetrics created = new CameraMetrics(camera.getDeviceId(), camera.getName());
+            metrics = registry.putIfAbsent(camera.getDeviceId(), created);
+            if (metrics == null) {
+                // Registered outside computeIfAbsent, which must not run slow side effects
+                JmxRegistry.register(MBEAN_TYPE, created.deviceId, created);
+                metrics = created;
+            }
+        }
+        metrics.cameraName = camera.getName();
+        return metrics;
+    }
+
+    /**
+     * Forgets a camera's metrics and unregisters its MBean, e.g. after the camera was
+     * removed or its device ID changed. A later {@link #forCamera} starts from zero.
+     *
+     * @param deviceId The camera's device ID
+     */
+    public static void remove(String deviceId) {
+        if (registry.remove(deviceId) != null) {
+            JmxRegistry.unregister(MBEAN_TYPE, deviceId);
+        }
+    }
+
+    /**
+     * Gets the metrics of every camera seen so far.
+     *
+     * @return Unmodifiable live view of all metrics
+     */
+    public static Collection<CameraMetrics> all() {
+        return Collections.unmodifiableCollection(registry.values());
+    }
+
+    @Override
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public String getCameraName() {
+        return cameraName;
+    }
+
+    /**
+     * Creates a parser that publishes into this camera's metrics.
+     *
+     * @param pipeline The pipeline whose process output will be parsed
+     * @return Parser to feed output lines to
+     */
+    public FFmpegProgress.Parser newParser(Pipeline pipeline) {
+        return new FFmpegProgress.Parser(progressListener(pipeline));
+    }
+
+    /**
+     * Gets a listener that records progress blocks for a pipeline.
+     *
+     * @param pipeline The pipeline reporting progress
+     * @return Listener for {@link FFmpegProgress.Parser}
+     */
+    public Consumer<FFmpegProgress> progressListener(Pipeline pipeline) {
+        return p -> {
+            progress.set(pipeline.ordinal(), p);
+            progressUpdates.incrementAndGet();
+        };
+    }
+
+    /**
+     * Gets the latest progress of a pipeline.
+     *
+     * @param pipeline The pipeline
+     * @return Latest progress, or null if the pipeline has not reported since it was cleared
+     */
+    public FFmpegProgress getProgress(Pipeline pipeline) {
+        return progress.get(pipeline.ordinal());
+    }
+
+    /**
+     * Forgets the progress of a pipeline, typically when its process stops.
+     *
+     * @param pipeline The pipeline
+     */
+    public void clearProgress(Pipeline pipeline) {
+        progress.set(pipeline.ordinal(), null);
+    }
+
+    /**
+     * Gets the number of progress blocks received across all pipelines.
+     *
+     * @return Progress update count
+     */
+    public long getProgressUpdates() {
+        return progressUpdates.get();
+    }
+
+    /**
+     * Records a stream lifecycle change.
+     *
+     * @param state The new state
+     */
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    /**
+     * Records the stream ffmpeg process, or its absence.
+     *
+     * @param pid Process ID, or -1 when the process has stopped
+     * @param encoderType Display name of the encoder in use, or null to keep the last one
+     */
+    public void setStreamProcess(long pid, String encoderType) {
+        this.ffmpegPid = pid;
+        if (encoderType != null) {
+            this.encoderType = encoderType;
+        }
+    }
+
+    /**
+     * Records one raw frame read from a preview pipe.
+     *
+     * @param bytes Size of the frame in bytes
+     */
+    public void recordFrameRead(int bytes) {
+        framesRead.incrementAndGet();
+        bytesPiped.addAndGet(bytes);
+    }
+
+    /**
+     * Records a raw frame that was read but not displayed.
+     */
+    public void recordFrameSkipped() {
+        framesSkipped.incrementAndGet();
+    }
+
+    /**
+     * Records a stream or preview restart after a failure.
+     */
+    public void recordRestart() {
+        restarts.incrementAndGet();
+    }
+
+    /**
+     * Records the capture mode chosen for the camera and its estimated USB bandwidth.
+     *
+     * @param description Format, size and rate, e.g. "mjpeg 1280x720@15 ~2.8 MB/s"
+     * @param bytesPerSecond Estimated bandwidth, or -1 if unknown
+     */
+    public void setInputMode(String description, long bytesPerSecond) {
+        this.inputMode = description;
+        this.inputBytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Records the start or end of a quarantine after repeated failures.
+     *
+     * @param quarantined true when the quarantine starts
+     */
+    public void setQuarantined(boolean quarantined) {
+        if (quarantined && !this.quarantined) {
+            quarantines.incrementAndGet();
+        }
+        this.quarantined = quarantined;
+    }
+
+    /**
+     * Records how long a snapshot capture took.
+     *
+     * @param latencyMillis Capture duration in milliseconds
+     */
+    public void recordSnapshotLatency(long latencyMillis) {
+        this.lastSnapshotLatencyMillis = latencyMillis;
+        snapshotLatency.record(latencyMillis);
+    }
+
+    /**
+     * Records bytes served over the camera's HLS HTTP server.
+     *
+     * @param bytes Bytes written to the client
+     * @param segment true if the file was a media segment rather than a playlist or init segment
+     */
+    public void recordHlsServed(long bytes, boolean segment) {
+        hlsBytesServed.add(bytes);
+        if (segment) {
+            segmentsServed.increment();
+        }
+    }
+
+    /**
+     * Gets the distribution of snapshot capture times.
+     *
+     * @return Snapshot latency histogram
+     */
+    public LatencyHistogram getSnapshotLatencyHistogram() {
+        return snapshotLatency;
+    }
+
+    /**
+     * Gets the number of HLS media segments served since startup.
+     *
+     * @return Segment count
+     */
+    public long getSegmentsServed() {
+        return segmentsServed.sum();
+    }
+
+    /**
+     * Gets the number of HLS bytes served since startup.
+     *
+     * @return Byte count
+     */
+    public long getHlsBytesServed() {
+        return hlsBytesServed.sum();
+    }
+
+    @Override
+    public String getState() {
+        return state.name();
+    }
+
+    @Override
+    public double getFps() {
+        FFmpegProgress p = getProgress(Pipeline.STREAM);
+        if (p == null) {
+            p = getProgress(Pipeline.PREVIEW);
+        }
+        return p != null ? p.fps() : 0;
+    }
+
+    @Override
+    public long getFramesEncoded() {
+        FFmpegProgress p = getProgress(Pipeline.STREAM);
+        return p != null ? p.frame() : 0;
+    }
+
+    @Override
+    public long getFramesRead() {
+        return framesRead.get();
+    }
+
+    @Override
+    public long getFramesSkipped() {
+        return framesSkipped.get();
+    }
+
+    @Override
+    public long getFramesDropped() {
+        long dropped = 0;
+        FFmpegProgress stream = getProgress(Pipeline.STREAM);
+        FFmpegProgress preview = getProgress(Pipeline.PREVIEW);
+        if (stream != null) {
+            dropped += stream.droppedFrames();
+        }
+        if (preview != null) {
+            dropped += preview.droppedFrames();
+        }
+        return dropped;
+    }
+
+    @Override
+    public long getBytesPiped() {
+        return bytesPiped.get();
+    }
+
+    @Override
+    public long getRestarts() {
+        return restarts.get();
+    }
+
+    @Override
+    public long getQuarantines() {
+        return quarantines.get();
+    }
+
+    @Override
+    public boolean isQuarantined() {
+        return quarantined;
+    }
+
+    @Override
+    public long getLastSnapshotLatencyMillis() {
+        return lastSnapshotLatencyMillis;
+    }
+
+    @Override
+    public String getEncoderType() {
+        return encoderType;
+    }
+
+    @Override
+    public String getInputMode() {
+        return inputMode;
+    }
+
+    @Override
+    public long getInputBytesPerSecond() {
+        return inputBytesPerSecond;
+    }
+
+    @Override
+    public long getFFmpegPid() {
+        return ffmpegPid;
+    }
+
+    @Override
+    public double getSpeed() {
+        FFmpegProgress p = getProgress(Pipeline.STREAM);
+        return p != null ? p.speed() : 0;
+    }
+
+    @Override
+    public double getBitrateKbps() {
+        FFmpegProgress p = getProgress(Pipeline.STREAM);
+        return p != null ? p.bitrateKbps() : 0;
+    }
+
+    @Override
+    public String toString() {
+        FFmpegProgress stream = getProgress(Pipeline.STREAM);
+        if (stream == null) {
+            return cameraName + ": no stream progress";
+        }
+        return String.format("%s: %.1f fps, %d dropped, %d dup, %.2fx, %.0f kbit/s",
+                cameraName, stream.fps(), stream.droppedFrames(), stream.duplicatedFrames(),
+                stream.speed(), stream.bitrateKbps());
+    }
+}
@@ -13,6 +13,9 @@ import javafx.scene.media.MediaView;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A preview component that displays a camera stream using JavaFX Media.
  * Receives video from an HTTP stream produced by FFmpeg and displays it in a MediaView.
@@ -21,6 +24,7 @@ public class CameraPreviewItem extends VBox {
     
     private static final double DEFAULT_WIDTH = 320;
     private static final double DEFAULT_HEIGHT = 240;
+    private static final long STOP_TIMEOUT_MS = 2000;
     
     private final Camera camera;
     private final Settings settings;
@@ -34,6 +38,10 @@ public class CameraPreviewItem extends VBox {
     private final BooleanProperty running = new SimpleBooleanProperty(false);
     
     private FFmpegStreamService streamService;
+    private FFmpegSupervisor.Watch watch;
+    private CompletableFuture<Boolean> starting;
+    // Stream asked to stop by requestStop() and not yet waited for
+    private FFmpegStreamService stopping;
     private MediaPlayer mediaPlayer;
     private Media media;
     
@@ -134,6 +142,18 @@ public class CameraPreviewItem extends VBox {
      * Starts the camera preview.
      */
     public void startPreview() {
+        startPreviewAsync();
+    }
+    
+    /**
+     * Starts the camera preview without blocking. The stream is started by
+     * {@link SessionStarter}; this method only sets up state and returns.
+     * Call on the FX thread.
+     *
+     * @return Future completing with true once ffmpeg and the HTTP server are up,
+     *         or false if they could not be started
+     */
+    public CompletableFuture<Boolean> startPreviewAsync() {
         System.out.println("[CameraPreviewItem] startPreview() called for '" + camera.getName() + 
             "' - running=" + running.get());
         // Print stack trace to identify caller
@@ -143,23 +163,49 @@ public class CameraPreviewItem extends VBox {
         }
         if (running.get()) {
             System.out.println("[CameraPreviewItem] Already running, returning early");
-            return;
+            return CompletableFuture.completedFuture(true);
+        }
+        if (starting != null && !starting.isDone()) {
+            return starting;
         }
         
-        Platform.runLater(() -> {
-            statusLabel.setText("⏳ Starting...");
-            statusLabel.setVisible(true);
-        });
+        statusLabel.setText("⏳ Starting...");
+        statusLabel.setVisible(true);
+        
+        // Restart the stream if ffmpeg crashes or stops encoding frames
+        if (watch == null) {
+            watch = FFmpegSupervisor.getInstance().watch(camera, CameraMetrics.Pipeline.STREAM,
+                () -> {
+                    FFmpegStreamService current = streamService;
+                    return current != null && current.isRunning();
+                },
+                () -> Platform.runLater(this::restartPreview),
+                status -> Platform.runLater(() -> {
+                    statusLabel.setText(status);
+                    statusLabel.setVisible(true);
+                }));
+        }
+        watch.started();
+        FFmpegSupervisor.Watch currentWatch = watch;
         
         System.out.println("[CameraPreviewItem] Creating FFmpegStreamService for '" + camera.getName() + "'");
         // Create and start FFmpeg stream service
         streamService = new FFmpegStreamService(camera, settings);
+        FFmpegStreamService service = streamService;
         
         streamService.setOnReadyCallback(() -> {
             Platform.runLater(() -> {
+                if (service != streamService) {
+                    return; // Stopped or replaced while starting in the background
+                }
                 try {
+                    // A restarted stream replaces the player of the previous one
+                    if (mediaPlayer != null) {
+                        mediaPlayer.dispose();
+                        mediaPlayer = null;
+                    }
                     // Create Media from HTTP stream URL
-                    String streamUrl = streamService.getStreamUrl();
+                    String streamUrl = service.getStreamUrl();
                     System.out.println("Connecting to stream: " + streamUrl);
                     
                     media = new Media(streamUrl);
@@ -197,20 +243,14 @@ public class CameraPreviewItem extends VBox {
                         Throwable error = mediaPlayer.getError();
                         System.err.println("Media player error for " + camera.getName() + ": " + 
                                 (error != null ? error.getMessage() : "Unknown error"));
-                        Platform.runLater(() -> {
-                            statusLabel.setText("⚠ Stream Error");
-                            statusLabel.setVisible(true);
-                        });
+                        Platform.runLater(() -> handleMediaFailure(service, "⚠ Stream Error"));
                     });
                     
                     media.setOnError(() -> {
                         Throwable error = media.getError();
                         System.err.println("Media error for " + camera.getName() + ": " + 
                                 (error != null ? error.getMessage() : "Unknown error"));
-                        Platform.runLater(() -> {
-                            statusLabel.setText("⚠ Media Error");
-                            statusLabel.setVisible(true);
-                        });
+                        Platform.runLater(() -> handleMediaFailure(service, "⚠ Media Error"));
                     });
                     
                 } catch (Exception e) {
@@ -227,15 +267,52 @@ public class CameraPreviewItem extends VBox {
                 statusLabel.setVisible(true);
                 running.set(false);
             });
+            currentWatch.failed("ffmpeg exited");
         });
         
-        // Start the FFmpeg stream
-        if (!streamService.start()) {
-            Platform.runLater(() -> {
-                statusLabel.setText("⚠ Failed to Start");
-                statusLabel.setVisible(true);
+        // Start the FFmpeg stream in the background; the UI only sees the outcome
+        starting = SessionStarter.submit(camera, service::start, started -> service.opened())
+            .exceptionally(e -> {
+                System.err.println("[CameraPreviewItem] Start failed for '" + camera.getName() + "': " + e.getMessage());
+                return false;
             });
+        starting.thenAccept(started -> {
+            if (!started) {
+                Platform.runLater(() -> {
+                    if (service == streamService) {
+                        statusLabel.setText("⚠ Failed to Start");
+                        statusLabel.setVisible(true);
+                    }
+                });
+                currentWatch.failed("failed to start");
+            }
+        });
+        return starting;
+    }
+    
+    /**
+     * Handles a media or player error. If the stream used fMP4 segments and ffmpeg is
+     * still producing them, the media stack is assumed not to support fMP4, so the
+     * preview restarts with MPEG-TS. Errors caused by a failed ffmpeg leave fMP4 enabled.
+     *
+     * @param failed The stream service the failing player was connected to
+     * @param status Status text to show when no fallback is possible
+     */
+    private void handleMediaFailure(FFmpegStreamService failed, String status) {
+        if (failed != streamService) {
+            return; // Already restarted, error belongs to the previous stream
+        }
+        if (failed != null && failed.getSegmentType() == HlsSegmentType.FMP4
+                && failed.isRunning() && failed.hasListedSegments()) {
+            HlsSegmentType.markFmp4Rejected();
+            System.out.println("Restarting preview for " + camera.getName() + " with MPEG-TS segments");
+            CameraMetrics.forCamera(camera).recordRestart();
+            stopStream();
+            startPreview();
+            return;
         }
+        statusLabel.setText(status);
+        statusLabel.setVisible(true);
     }
     
     /**
@@ -303,6 +380,70 @@ public class CameraPreviewItem extends VBox {
      * Stops the camera preview.
      */
     public void stopPreview() {
+        if (watch != null) {
+            watch.cancel();
+            watch = null;
+        }
+        stopStream();
+    }
+    
+    /**
+     * Restarts a failed stream on behalf of the supervisor, keeping its watch.
+     */
+    private void restartPreview() {
+        if (watch == null) {
+            return; // Stopped by the user while the restart was pending
+        }
+        stopStream();
+        startPreview();
+    }
+    
+    /**
+     * Begins stopping the preview without waiting for ffmpeg to exit; finish with
+     * {@link #awaitStop(long)}. Used to stop many previews in parallel.
+     */
+    public void requestStop() {
+        if (watch != null) {
+            watch.cancel();
+            watch = null;
+        }
+        FFmpegStreamService service = beginStopStream();
+        if (service != null) {
+            stopping = service;
+        }
+    }
+    
+    /**
+     * Waits for a stop begun with {@link #requestStop()} to finish, killing ffmpeg
+     * if it has not exited by the deadline.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} value to stop waiting at
+     */
+    public void awaitStop(long deadlineNanos) {
+        FFmpegStreamService service = stopping;
+        stopping = null;
+        if (service != null) {
+            service.awaitStop(deadlineNanos);
+        }
+    }
+    
+    /**
+     * Stops the media player and the FFmpeg stream.
+     */
+    private void stopStream() {
+        FFmpegStreamService service = beginStopStream();
+        if (service != null) {
+            service.awaitStop(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_TIMEOUT_MS));
+        }
+    }
+    
+    /**
+     * Stops the media player and asks the FFmpeg stream to stop.
+     *
+     * @return The stream service to wait for, or null if there is none or it is
+     *         still starting (it is then stopped once its start completes)
+     */
+    private FFmpegStreamService beginStopStream() {
         System.out.println("[CameraPreviewItem] stopPreview() called for '" + camera.getName() + "'");
         running.set(false);
         
@@ -317,15 +458,24 @@ public class CameraPreviewItem extends VBox {
         media = null;
         mediaView.setMediaPlayer(null);
         
-        // Stop FFmpeg stream
+        // Stop FFmpeg stream, after its start finishes if it is still starting
+        FFmpegStreamService pending = null;
         if (streamService != null) {
             System.out.println("[CameraPreviewItem] Stopping FFmpegStreamService");
-            streamService.stop();
+            FFmpegStreamService service = streamService;
             streamService = null;
+            if (starting != null && !starting.isDone()) {
+                starting.whenComplete((started, e) -> service.stop());
+            } else {
+                service.requestStop();
+                pending = service;
+            }
+            starting = null;
         } else {
             System.out.println("[CameraPreviewItem] No streamService to stop");
         }
         System.out.println("[CameraPreviewItem] stopPreview() completed for '" + camera.getName() + "'");
+        return pending;
     }
     
     /**
@@ -0,0 +1,97 @@
+package com.example.simplephototool;
+
+/**
+ * Management view of one camera: its stream state and the counters fed by
+ * FFmpeg progress reports, preview tiles and snapshots.
+ */
+public interface CameraSessionMXBean {
+
+    String getCameraName();
+
+    String getDeviceId();
+
+    /**
+     * @return STOPPED, STARTING, RUNNING or FAILED
+     */
+    String getState();
+
+    /**
+     * @return Output frame rate of the HLS stream, or of the raw preview if no stream runs
+     */
+    double getFps();
+
+    /**
+     * @return Frames encoded by the current HLS stream
+     */
+    long getFramesEncoded();
+
+    /**
+     * @return Raw frames read from preview pipes since startup
+     */
+    long getFramesRead();
+
+    /**
+     * @return Raw frames read from preview pipes but not displayed, since startup
+     */
+    long getFramesSkipped();
+
+    /**
+     * @return Frames dropped by the running ffmpeg pipelines; resets when they restart
+     */
+    long getFramesDropped();
+
+    /**
+     * @return Raw frame bytes read from preview pipes since startup
+     */
+    long getBytesPiped();
+
+    /**
+     * @return Number of times a stream or preview was restarted after a failure
+     */
+    long getRestarts();
+
+    /**
+     * @return Number of times the camera was quarantined for failing repeatedly
+     */
+    long getQuarantines();
+
+    /**
+     * @return true while the supervisor is holding off restarts after repeated failures
+     */
+    boolean isQuarantined();
+
+    /**
+     * @return Duration of the last snapshot in milliseconds, or -1 if none was taken
+     */
+    long getLastSnapshotLatencyMillis();
+
+    /**
+     * @return Display name of the encoder used by the current or last stream
+     */
+    String getEncoderType();
+
+    /**
+     * @return Capture format, size and rate last requested from the device, or empty
+     */
+    String getInputMode();
+
+    /**
+     * @return Estimated USB bandwidth of that mode in bytes per second, or -1 if unknown
+     */
+    long getInputBytesPerSecond();
+
+    /**
+     * @return PID of the running stream ffmpeg process, or -1 if none
+     */
+    long getFFmpegPid();
+
+    /**
+     * @return Encoding speed relative to real time as last reported by the stream
+     */
+    double getSpeed();
+
+    /**
+     * @return Output bitrate in kbit/s as last reported by the stream
+     */
+    double getBitrateKbps();
+}
@@ -1,8 +1,15 @@
 package com.example.simplephototool;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Strategy interface for platform-specific camera operations.
@@ -17,9 +24,12 @@ public interface CameraStrategy {
      */
     List<CameraDevice> detectDevices();
 
+    /** Frame rate delivered to raw-video preview tiles. */
+    int PREVIEW_FPS = 15;
+
     /**
      * Builds a platform-specific FFmpeg command for video capture.
-     * The command should output raw RGB24 frames to stdout.
+     * The command should output raw frames in {@link #getFFmpegPixelFormat()} to stdout.
      *
      * @param camera The camera to preview
      * @param settings Application settings (for resolution, etc.)
@@ -29,22 +39,89 @@ public interface CameraStrategy {
 
     /**
      * Gets the pixel format used by FFmpeg output for this platform.
-     * Default is RGB24 (3 bytes per pixel).
+     * Prefers BGRA, which JavaFX can upload without per-pixel conversion,
+     * and falls back to RGB24 when the ffmpeg build cannot output it.
      *
      * @return The pixel format name
      */
     default String getFFmpegPixelFormat() {
-        return "rgb24";
+        return FFmpegCapabilities.get().supportsOutputPixelFormat("bgra") ? "bgra" : "rgb24";
     }
 
     /**
      * Gets the bytes per pixel for the FFmpeg output format.
-     * Default is 3 for RGB24.
      *
      * @return Bytes per pixel
      */
     default int getBytesPerPixel() {
-        return 3; // RGB24
+        return "bgra".equals(getFFmpegPixelFormat()) ? 4 : 3;
+    }
+
+    /**
+     * Gets the output arguments for the raw preview command: frame rate reduction
+     * in ffmpeg (so unused frames are never piped) and raw video in the preview pixel format.
+     *
+     * @return FFmpeg output arguments ending with stdout as the target
+     */
+    default List<String> getRawPreviewOutputArguments() {
+        return getRawPreviewOutputArguments(PREVIEW_FPS);
+    }
+
+    /**
+     * Same as {@link #getRawPreviewOutputArguments()} at another frame rate, e.g. the
+     * lower rate a preview was planned at to fit its USB bus.
+     *
+     * @param fps Output frame rate
+     * @return FFmpeg output arguments ending with stdout as the target
+     */
+    default List<String> getRawPreviewOutputArguments(int fps) {
+        List<String> args = new ArrayList<>();
+        if (FFmpegCapabilities.get().supportsFilter("fps")) {
+            args.add("-vf");
+            args.add("fps=" + fps);
+        } else {
+            args.add("-r");
+            args.add(String.valueOf(fps));
+        }
+        args.add("-f");
+        args.add("rawvideo");
+        args.add("-pix_fmt");
+        args.add(getFFmpegPixelFormat());
+        args.add("-");
+        return args;
+    }
+
+    /**
+     * Same as {@link #getRawPreviewOutputArguments()}, scaling frames to a fixed size
+     * first. Preview tiles size their frame buffer from the camera resolution, so
+     * inputs that deliver another size must be scaled to it.
+     *
+     * @param width Output width
+     * @param height Output height
+     * @return FFmpeg output arguments ending with stdout as the target
+     */
+    default List<String> getRawPreviewOutputArguments(int width, int height) {
+        return getRawPreviewOutputArguments(width, height, PREVIEW_FPS);
+    }
+
+    /**
+     * Same as {@link #getRawPreviewOutputArguments(int, int)} at another frame rate.
+     *
+     * @param width Output width
+     * @param height Output height
+     * @param fps Output frame rate
+     * @return FFmpeg output arguments ending with stdout as the target
+     */
+    default List<String> getRawPreviewOutputArguments(int width, int height, int fps) {
+        List<String> args = new ArrayList<>(getRawPreviewOutputArguments(fps));
+        String scale = "scale=" + width + ":" + height;
+        int filter = args.indexOf("-vf");
+        if (filter >= 0) {
+            args.set(filter + 1, scale + "," + args.get(filter + 1));
+        } else {
+            args.addAll(0, List.of("-vf", scale));
+        }
+        return args;
     }
 
     /**
@@ -67,14 +144,149 @@ public interface CameraStrategy {
      */
     String getPlatformName();
     
+    /**
+     * Builds a platform-specific FFmpeg command that writes a single frame to a file.
+     *
+     * @param camera The camera to capture from
+     * @param settings Application settings
+     * @param outputPath The image file to write
+     * @return ProcessBuilder configured with FFmpeg snapshot command
+     */
+    ProcessBuilder buildSnapshotCommand(Camera camera, Settings settings, String outputPath);
+
+    /**
+     * Builds a platform-specific FFmpeg command that records the camera's feed
+     * without re-encoding (raw or MJPEG, whatever the device delivers) to a
+     * Matroska file, so it can be replayed later by {@link SyntheticCameraStrategy}.
+     *
+     * @param camera The camera to record
+     * @param settings Application settings
+     * @param outputPath The .mkv file to write
+     * @param seconds Length of the recording
+     * @return ProcessBuilder configured with FFmpeg record command
+     */
+    ProcessBuilder buildRecordCommand(Camera camera, Settings settings, String outputPath, int seconds);
+
+    /**
+     * Gets the file a snapshot of the camera should be written to.
+     *
+     * @param camera The camera
+     * @param settings Application settings
+     * @return Output path in the snapshot directory
+     */
+    default String getSnapshotOutputPath(Camera camera, Settings settings) {
+        return Path.of(settings.getSnapshotOutputDirectory(),
+                generateFilename(camera, settings.getFilenamePattern())).toString();
+    }
+
+    /**
+     * Captures a snapshot from a single camera using FFmpeg.
+     *
+     * @param camera The camera to capture from
+     * @param settings Application settings
+     * @return true if successful
+     */
+    default boolean captureSnapshot(Camera camera, Settings settings) {
+        return captureSnapshot(camera, settings, System.nanoTime());
+    }
+
     /**
      * Captures a snapshot from a single camera using FFmpeg.
      *
      * @param camera The camera to capture from
      * @param settings Application settings
+     * @param triggerNanos {@link System#nanoTime()} when the snapshot was requested,
+     *                     used to report how long the capture waited to start
      * @return true if successful
      */
-    boolean captureSnapshot(Camera camera, Settings settings);
+    default boolean captureSnapshot(Camera camera, Settings settings, long triggerNanos) {
+        return attemptSnapshot(camera, settings, triggerNanos, Long.MAX_VALUE) == SnapshotResult.SAVED;
+    }
+
+    /**
+     * Outcome of one snapshot attempt.
+     */
+    enum SnapshotResult {
+        /** The image was written. */
+        SAVED,
+        /** The device was busy or its bus had no bandwidth left (EBUSY, ENOSPC); worth retrying. */
+        DEVICE_BUSY,
+        /** Any other failure, including running out of time. */
+        FAILED
+    }
+
+    /**
+     * Makes one attempt to capture a snapshot from a single camera using FFmpeg.
+     * Stderr is always drained; progress lines go to the camera's metrics and
+     * the remaining output is echoed when verbose output is enabled.
+     *
+     * @param camera The camera to capture from
+     * @param settings Application settings
+     * @param triggerNanos {@link System#nanoTime()} when the snapshot was requested,
+     *                     used to report how long the capture waited to start
+     * @param deadlineNanos {@link System#nanoTime()} at which ffmpeg is killed, or
+     *                      {@link Long#MAX_VALUE} to wait for it indefinitely
+     * @return The outcome
+     */
+    default SnapshotResult attemptSnapshot(Camera camera, Settings settings, long triggerNanos, long deadlineNanos) {
+        String outputPath = getSnapshotOutputPath(camera, settings);
+        ProcessBuilder pb = buildSnapshotCommand(camera, settings, outputPath);
+        CameraMetrics metrics = CameraMetrics.forCamera(camera);
+        FFmpegProgress.Parser progress = metrics.newParser(CameraMetrics.Pipeline.SNAPSHOT);
+        FlightEvents.SnapshotCapture event = new FlightEvents.SnapshotCapture();
+        event.begin();
+        long startNanos = System.nanoTime();
+        boolean success = false;
+
+        try {
+            Process process = FFmpegProcesses.start(pb, camera.getName(), "snapshot");
+            if (deadlineNanos != Long.MAX_VALUE) {
+                // A device that never delivers a frame would otherwise hold the capture forever
+                long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+                CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(() -> {
+                    if (process.isAlive()) {
+                        System.err.println("Snapshot from " + camera.getName() + " missed its deadline");
+                        process.destroyForcibly();
+                    }
+                });
+            }
+            boolean busy = false;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!progress.accept(line)) {
+                        busy |= line.contains("Device or resource busy") || line.contains("No space left on device");
+                        if (settings.getVerboseOutput()) {
+                            System.out.println(line);
+                        }
+                    }
+                }
+            }
+            int exitCode = process.waitFor();
+            metrics.recordSnapshotLatency((System.nanoTime() - startNanos) / 1_000_000);
+            if (exitCode != 0) {
+                System.err.println("FFmpeg failed to capture snapshot from " + camera.getName() + " with exit code " + exitCode
+                        + (busy ? " (device busy)" : ""));
+                return busy ? SnapshotResult.DEVICE_BUSY : SnapshotResult.FAILED;
+            }
+            System.out.println("Snapshot saved: " + outputPath);
+            success = true;
+            return SnapshotResult.SAVED;
+        } catch (Exception e) {
+            System.err.println("Error capturing snapshot from " + camera.getName() + ": " + e.getMessage());
+            return SnapshotResult.FAILED;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.camera = camera.getName();
+                event.queueDelayMillis = (startNanos - triggerNanos) / 1_000_000;
+                event.outputPath = outputPath;
+                event.fileSize = success ? new File(outputPath).length() : 0;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
 
     /**
      * Generates a filename from the pattern, replacing placeholders.
@@ -106,7 +318,10 @@ public interface CameraStrategy {
      * @param settings Application settings (for resolution, etc.)
      * @param port Not used for HLS (kept for API compatibility)
      * @param hlsPath The directory path for HLS segment files
+     * @param segmentType Segment container to write, already resolved with
+     *                    {@link HlsSegmentType#resolve}; the caller keeps it to interpret failures
      * @return ProcessBuilder configured with FFmpeg HLS streaming command
      */
-    ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath);
+    ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath,
+                                                HlsSegmentType segmentType);
 }
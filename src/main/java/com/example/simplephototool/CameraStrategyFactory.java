@@ -1,22 +1,41 @@
 package com.example.simplephototool;
 
+import java.util.List;
+
 /**
  * Factory for creating platform-specific camera strategies.
  */
 public class CameraStrategyFactory {
     
+    /**
+     * System property that overrides platform detection: "synthetic", "linux",
+     * "windows" or "mac". "synthetic" uses {@link SyntheticCameraStrategy}, which
+     * needs no camera hardware.
+     */
+    public static final String STRATEGY_PROPERTY = "spt.camera.strategy";
+    
     private static CameraStrategy instance;
     
     /**
-     * Gets the appropriate camera strategy for the current platform.
+     * Gets the camera strategy selected by {@value #STRATEGY_PROPERTY},
+     * or the appropriate strategy for the current platform.
      * 
-     * @return Platform-specific camera strategy
+     * @return Camera strategy
      */
-    public static CameraStrategy getStrategy() {
+    public static synchronized CameraStrategy getStrategy() {
         if (instance == null) {
+            String selected = System.getProperty(STRATEGY_PROPERTY, "").trim().toLowerCase();
             String os = System.getProperty("os.name").toLowerCase();
             
-            if (os.contains("linux")) {
+            if (selected.equals("synthetic")) {
+                instance = new SyntheticCameraStrategy();
+            } else if (selected.equals("linux")) {
+                instance = new LinuxCameraStrategy();
+            } else if (selected.equals("windows")) {
+                instance = new WindowsCameraStrategy();
+            } else if (selected.equals("mac")) {
+                instance = new MacCameraStrategy();
+            } else if (os.contains("linux")) {
                 instance = new LinuxCameraStrategy();
             } else if (os.contains("windows")) {
                 instance = new WindowsCameraStrategy();
@@ -26,6 +45,9 @@ public class CameraStrategyFactory {
                 // Default fallback
                 instance = new LinuxCameraStrategy();
             }
+            if (!selected.isEmpty() && !List.of("synthetic", "linux", "windows", "mac").contains(selected)) {
+                System.err.println("Unknown " + STRATEGY_PROPERTY + " '" + selected + "', using platform default");
+            }
             
             System.out.println("Using camera strategy: " + instance.getPlatformName());
         }
@@ -0,0 +1,281 @@
+package com.example.simplephototool;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a cached list of camera devices, detected in the background, so the UI
+ * never waits for a device scan (on Windows and macOS a scan spawns ffmpeg).
+ * <p>
+ * On Linux {@code /dev} is watched for {@code video*} nodes being created and
+ * deleted, so the list follows hotplug without polling and {@link Listener}s hear
+ * about unplugged and replugged cameras. Other platforms have no device events;
+ * their list is rescanned on request once it is older than {@link #STALE_AFTER_MS}.
+ */
+public class DeviceInventory {
+
+    /** Age after which a list that is not kept current by events is rescanned. */
+    static final long STALE_AFTER_MS = 30_000;
+    /** udev creates several nodes per camera; changes are scanned once they settle. */
+    private static final long SETTLE_MS = 250;
+    private static final Path DEV = Path.of("/dev");
+
+    /**
+     * Receives device list changes, on the inventory's thread.
+     */
+    public interface Listener {
+        /**
+         * Called after a scan found devices added or removed.
+         *
+         * @param added Devices that appeared
+         * @param removed Devices that disappeared
+         */
+        void devicesChanged(List<CameraDevice> added, List<CameraDevice> removed);
+    }
+
+    private static final DeviceInventory instance = new DeviceInventory();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Scans run one at a time, in order
+    private final ExecutorService scanner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "DeviceInventory");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<CameraDevice> devices = List.of();
+    private volatile long scannedAtNanos;
+    private volatile boolean watching;
+    private CompletableFuture<List<CameraDevice>> firstScan;
+    private WatchService watchService;
+
+    private DeviceInventory() {
+    }
+
+    /**
+     * Gets the shared inventory.
+     *
+     * @return The inventory instance
+     */
+    public static DeviceInventory getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts the first scan and, on Linux, watching for hotplug. Safe to call more than once.
+     */
+    public synchronized void start() {
+        if (firstScan != null) {
+            return;
+        }
+        firstScan = refresh();
+        if (CameraStrategyFactory.getStrategy() instanceof LinuxCameraStrategy && Files.isDirectory(DEV)) {
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+                DEV.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+                watching = true;
+                IoThreads.start("DeviceInventory-watch", this::watchDev);
+                System.out.println("[DeviceInventory] Watching " + DEV + " for camera hotplug");
+            } catch (IOException e) {
+                System.err.println("[DeviceInventory] Cannot watch " + DEV + ", devices are scanned on request: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops watching for hotplug.
+     */
+    public synchronized void stop() {
+        watching = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watchService = null;
+        }
+    }
+
+    /**
+     * Gets the cached device list without scanning.
+     *
+     * @return Devices found by the last scan; empty before the first scan finishes
+     */
+    public List<CameraDevice> getDevices() {
+        return devices;
+    }
+
+    /**
+     * Tells whether at least one scan has finished.
+     *
+     * @return true once {@link #getDevices()} reflects a scan
+     */
+    public boolean isLoaded() {
+        return scannedAtNanos != 0;
+    }
+
+    /**
+     * Gets a current device list: the cached one if it is kept current by hotplug
+     * events or was scanned recently, otherwise the result of a fresh scan.
+     *
+     * @return Future completing with the device list
+     */
+    public CompletableFuture<List<CameraDevice>> getDevicesAsync() {
+        CompletableFuture<List<CameraDevice>> first;
+        synchronized (this) {
+            if (firstScan == null) {
+                start();
+            }
+            first = firstScan;
+        }
+        if (!first.isDone()) {
+            return first;
+        }
+        long age = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scannedAtNanos);
+        if (watching || age < STALE_AFTER_MS) {
+            return CompletableFuture.completedFuture(devices);
+        }
+        return refresh();
+    }
+
+    /**
+     * Rescans devices in the background and notifies listeners of changes.
+     *
+     * @return Future completing with the new device list
+     */
+    public CompletableFuture<List<CameraDevice>> refresh() {
+        return CompletableFuture.supplyAsync(this::scan, scanner);
+    }
+
+    /**
+     * Adds a listener for device changes.
+     *
+     * @param listener The listener
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener The listener
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private List<CameraDevice> scan() {
+        List<CameraDevice> found;
+        try {
+            found = List.copyOf(CameraStrategyFactory.getStrategy().detectDevices());
+        } catch (RuntimeException e) {
+            System.err.println("[DeviceInventory] Device scan failed: " + e.getMessage());
+            return devices;
+        }
+        boolean firstResult = !isLoaded();
+        Map<String, CameraDevice> before = byId(devices);
+        Map<String, CameraDevice> after = byId(found);
+        devices = found;
+        scannedAtNanos = System.nanoTime();
+
+        if (firstResult) {
+            System.out.println("[DeviceInventory] Detected " + found.size() + " camera(s)");
+            return found;
+        }
+        List<CameraDevice> added = new ArrayList<>();
+        List<CameraDevice> removed = new ArrayList<>();
+        for (CameraDevice device : found) {
+            if (!before.containsKey(device.getDeviceId())) {
+                added.add(device);
+            }
+        }
+        for (CameraDevice device : before.values()) {
+            if (!after.containsKey(device.getDeviceId())) {
+                removed.add(device);
+            }
+        }
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            System.out.println("[DeviceInventory] Devices added: " + ids(added) + ", removed: " + ids(removed));
+            for (Listener listener : listeners) {
+                try {
+                    listener.devicesChanged(added, removed);
+                } catch (RuntimeException e) {
+                    System.err.println("[DeviceInventory] Listener failed: " + e.getMessage());
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Waits for {@code video*} nodes to appear or disappear in /dev and rescans
+     * once a burst of events has settled.
+     */
+    private void watchDev() {
+        WatchService service = watchService;
+        try {
+            while (watching) {
+                WatchKey key = service.take();
+                boolean relevant = isVideoEvent(key);
+                // Collect the rest of the burst
+                WatchKey more;
+                while ((more = service.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= isVideoEvent(more);
+                }
+                if (relevant) {
+                    refresh();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    private static boolean isVideoEvent(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+            } else if (event.context() instanceof Path name && name.toString().startsWith("video")) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private static Map<String, CameraDevice> byId(List<CameraDevice> list) {
+        Map<String, CameraDevice> map = new LinkedHashMap<>();
+        for (CameraDevice device : list) {
+            map.put(device.getDeviceId(), device);
+        }
+        return map;
+    }
+
+    private static List<String> ids(List<CameraDevice> list) {
+        List<String> ids = new ArrayList<>();
+        for (CameraDevice device : list) {
+            ids.add(device.getDeviceId());
+        }
+        return ids;
+    }
+}
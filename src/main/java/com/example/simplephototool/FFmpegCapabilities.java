@@ -0,0 +1,387 @@
+package com.example.simplephototool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Catalogue of what the installed ffmpeg build supports: encoders, filters,
+ * demuxers, muxers, input devices, pixel formats and HLS muxer options.
+ * Built once per ffmpeg binary and cached on disk, so command builders can pick
+ * the fastest supported option without trial-and-error process spawns.
+ * <p>
+ * Instances are immutable and safe to query from any thread. When the catalogue
+ * cannot be built (ffmpeg missing or unparseable output) every query answers
+ * {@code true}, so commands are built exactly as they would be without it.
+ */
+public final class FFmpegCapabilities {
+
+    private static final String CACHE_FILE_NAME = "ffmpeg-capabilities.properties";
+    /** Time allowed for all listing runs together; a hung ffmpeg then leaves the catalogue unknown. */
+    private static final long BUILD_TIMEOUT_MS = 10_000;
+    private static final FFmpegCapabilities UNKNOWN = new FFmpegCapabilities(false,
+            Set.of(), Set.of(), Set.of(), Set.of(), Set.of(), Set.of(), Set.of(), Set.of());
+
+    private static final Pattern FORMAT_LINE = Pattern.compile("^\\s([DEd. ]{2,3})\\s+(\\S+)");
+
+    private static volatile FFmpegCapabilities instance = null;
+
+    private final boolean known;
+    private final Set<String> encoders;
+    private final Set<String> filters;
+    private final Set<String> demuxers;
+    private final Set<String> muxers;
+    private final Set<String> inputDevices;
+    private final Set<String> outputPixelFormats;
+    private final Set<String> hlsOptions;
+    private final Set<String> hlsFlags;
+
+    private FFmpegCapabilities(boolean known, Set<String> encoders, Set<String> filters,
+                               Set<String> demuxers, Set<String> muxers, Set<String> inputDevices,
+                               Set<String> outputPixelFormats, Set<String> hlsOptions, Set<String> hlsFlags) {
+        this.known = known;
+        this.encoders = Collections.unmodifiableSet(encoders);
+        this.filters = Collections.unmodifiableSet(filters);
+        this.demuxers = Collections.unmodifiableSet(demuxers);
+        this.muxers = Collections.unmodifiableSet(muxers);
+        this.inputDevices = Collections.unmodifiableSet(inputDevices);
+        this.outputPixelFormats = Collections.unmodifiableSet(outputPixelFormats);
+        this.hlsOptions = Collections.unmodifiableSet(hlsOptions);
+        this.hlsFlags = Collections.unmodifiableSet(hlsFlags);
+    }
+
+    /**
+     * Gets the capability catalogue for the installed ffmpeg, building it on first use.
+     *
+     * @return The capability catalogue
+     */
+    public static FFmpegCapabilities get() {
+        FFmpegCapabilities current = instance;
+        if (current != null) {
+            return current;
+        }
+        synchronized (FFmpegCapabilities.class) {
+            if (instance == null) {
+                instance = load();
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Discards the in-memory catalogue so it is rebuilt on next use.
+     * The on-disk cache is reused if the ffmpeg binary has not changed.
+     */
+    public static synchronized void refresh() {
+        instance = null;
+    }
+
+    /**
+     * Checks whether the catalogue was actually built from ffmpeg output.
+     *
+     * @return true if queries reflect the installed build
+     */
+    public boolean isKnown() {
+        return known;
+    }
+
+    public boolean supportsEncoder(String name) {
+        return !known || encoders.contains(name);
+    }
+
+    public boolean supportsFilter(String name) {
+        return !known || filters.contains(name);
+    }
+
+    public boolean supportsDemuxer(String name) {
+        return !known || demuxers.contains(name);
+    }
+
+    public boolean supportsMuxer(String name) {
+        return !known || muxers.contains(name);
+    }
+
+    public boolean supportsInputDevice(String name) {
+        return !known || inputDevices.contains(name);
+    }
+
+    public boolean supportsOutputPixelFormat(String name) {
+        return !known || outputPixelFormats.contains(name);
+    }
+
+    /**
+     * Checks whether the HLS muxer accepts an option, e.g. {@code hls_segment_type}.
+     *
+     * @param name Option name without the leading dash
+     * @return true if supported
+     */
+    public boolean supportsHlsOption(String name) {
+        return !known || hlsOptions.contains(name);
+    }
+
+    /**
+     * Joins the wanted {@code -hls_flags} values that this build supports.
+     *
+     * @param wanted Flags in the order they should appear
+     * @return Flags joined with '+', or an empty string if none are supported
+     */
+    public String hlsFlags(String... wanted) {
+        List<String> supported = new ArrayList<>();
+        for (String flag : wanted) {
+            if (!known || hlsFlags.contains(flag)) {
+                supported.add(flag);
+            }
+        }
+        return String.join("+", supported);
+    }
+
+    /**
+     * Loads the catalogue from the disk cache, or builds and caches it.
+     */
+    private static FFmpegCapabilities load() {
+        String fingerprint = FFmpegDetector.getFingerprint();
+        if (fingerprint == null) {
+            System.out.println("[FFmpegCapabilities] ffmpeg not found, assuming full capabilities");
+            return UNKNOWN;
+        }
+
+        FFmpegCapabilities cached = loadCached(fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+
+        long start = System.nanoTime();
+        // One deadline for the whole sequence: callers of get() wait for it
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(BUILD_TIMEOUT_MS);
+        try {
+            List<String> hlsHelp = run(deadline, "-h", "muxer=hls");
+            FFmpegCapabilities built = new FFmpegCapabilities(true,
+                    parseCodecList(run(deadline, "-encoders")),
+                    parseFilterList(run(deadline, "-filters")),
+                    parseFormatList(run(deadline, "-formats"), 'D'),
+                    parseFormatList(run(deadline, "-muxers"), 'E'),
+                    parseFormatList(run(deadline, "-devices"), 'D'),
+                    parsePixelFormatList(run(deadline, "-pix_fmts")),
+                    parseOptionNames(hlsHelp),
+                    parseOptionValues(hlsHelp, "-hls_flags"));
+            if (built.encoders.isEmpty() || built.muxers.isEmpty()) {
+                System.err.println("[FFmpegCapabilities] Unexpected ffmpeg output, assuming full capabilities");
+                return UNKNOWN;
+            }
+            saveCached(fingerprint, built);
+            System.out.println("[FFmpegCapabilities] Catalogue built in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms: "
+                    + built.encoders.size() + " encoders, " + built.filters.size() + " filters, "
+                    + built.muxers.size() + " muxers");
+            return built;
+        } catch (Exception e) {
+            System.err.println("[FFmpegCapabilities] Failed to build catalogue: " + e.getMessage());
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Runs ffmpeg with the given listing arguments and returns its output lines.
+     * ffmpeg is killed at the deadline, which fails the build.
+     */
+    private static List<String> run(long deadlineNanos, String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add("ffmpeg");
+        command.add("-hide_banner");
+        command.addAll(List.of(args));
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        Process process = FFmpegProcesses.start(pb, null, "capabilities");
+        AtomicBoolean killed = FFmpegProcesses.killAfter(process, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            lines = reader.lines().toList();
+        }
+        process.waitFor();
+        if (killed.get()) {
+            throw new IOException("ffmpeg " + String.join(" ", args) + " did not finish in time");
+        }
+        return lines;
+    }
+
+    /**
+     * Parses {@code -encoders} output: " V....D libx264   description".
+     */
+    private static Set<String> parseCodecList(List<String> lines) {
+        Set<String> names = new LinkedHashSet<>();
+        boolean inList = false;
+        for (String line : lines) {
+            if (line.trim().startsWith("---")) {
+                inList = true;
+                continue;
+            }
+            String[] tokens = line.trim().split("\\s+");
+            if (inList && tokens.length >= 2) {
+                names.add(tokens[1]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Parses {@code -filters} output: " TSC fps   V->V   description".
+     */
+    private static Set<String> parseFilterList(List<String> lines) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String line : lines) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens.length >= 3 && tokens[0].matches("[TSC.|]{2,3}") && tokens[2].contains("->")) {
+                names.add(tokens[1]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Parses {@code -formats}, {@code -muxers} and {@code -devices} output:
+     * " DE  mov,mp4,m4a  description", where newer builds add a third 'd' (device) column.
+     * Only entries carrying the given flag are kept.
+     */
+    private static Set<String> parseFormatList(List<String> lines, char flag) {
+        Set<String> names = new LinkedHashSet<>();
+        boolean inList = false;
+        for (String line : lines) {
+            if (line.trim().startsWith("--")) {
+                inList = true;
+                continue;
+            }
+            Matcher matcher = FORMAT_LINE.matcher(line);
+            if (inList && matcher.find() && matcher.group(1).indexOf(flag) >= 0) {
+                names.addAll(List.of(matcher.group(2).split(",")));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Parses {@code -pix_fmts} output: "IO... bgra  4  32  8-8-8-8",
+     * keeping formats that can be used for output.
+     */
+    private static Set<String> parsePixelFormatList(List<String> lines) {
+        Set<String> names = new LinkedHashSet<>();
+        boolean inList = false;
+        for (String line : lines) {
+            if (line.trim().startsWith("---")) {
+                inList = true;
+                continue;
+            }
+            String[] tokens = line.trim().split("\\s+");
+            if (inList && tokens.length >= 2 && tokens[0].length() >= 2 && tokens[0].charAt(1) == 'O') {
+                names.add(tokens[1]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Parses option names from {@code -h muxer=...} output: "  -hls_time  <duration> ...".
+     */
+    private static Set<String> parseOptionNames(List<String> lines) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("-")) {
+                names.add(trimmed.split("\\s+")[0].substring(1));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Parses the named constants listed under one option in {@code -h muxer=...} output.
+     */
+    private static Set<String> parseOptionValues(List<String> lines, String option) {
+        Set<String> values = new LinkedHashSet<>();
+        boolean inOption = false;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("-")) {
+                inOption = trimmed.split("\\s+")[0].equals(option);
+            } else if (inOption && !trimmed.isEmpty()) {
+                values.add(trimmed.split("\\s+")[0]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads a cached catalogue if it was built for the same ffmpeg binary.
+     */
+    private static FFmpegCapabilities loadCached(String fingerprint) {
+        try {
+            Path cacheFile = SettingsManager.getCacheDirectory().resolve(CACHE_FILE_NAME);
+            if (!Files.exists(cacheFile)) {
+                return null;
+            }
+            Properties props = new Properties();
+            try (InputStream input = Files.newInputStream(cacheFile)) {
+                props.load(input);
+            }
+            if (!fingerprint.equals(props.getProperty("ffmpeg.fingerprint"))) {
+                return null;
+            }
+            return new FFmpegCapabilities(true,
+                    split(props, "encoders"), split(props, "filters"),
+                    split(props, "demuxers"), split(props, "muxers"),
+                    split(props, "input.devices"), split(props, "output.pixel.formats"),
+                    split(props, "hls.options"), split(props, "hls.flags"));
+        } catch (Exception e) {
+            System.err.println("[FFmpegCapabilities] Ignoring unreadable cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the catalogue to the disk cache.
+     */
+    private static void saveCached(String fingerprint, FFmpegCapabilities caps) {
+        try {
+            Properties props = new Properties();
+            props.setProperty("ffmpeg.fingerprint", fingerprint);
+            props.setProperty("encoders", String.join(",", caps.encoders));
+            props.setProperty("filters", String.join(",", caps.filters));
+            props.setProperty("demuxers", String.join(",", caps.demuxers));
+            props.setProperty("muxers", String.join(",", caps.muxers));
+            props.setProperty("input.devices", String.join(",", caps.inputDevices));
+            props.setProperty("output.pixel.formats", String.join(",", caps.outputPixelFormats));
+            props.setProperty("hls.options", String.join(",", caps.hlsOptions));
+            props.setProperty("hls.flags", String.join(",", caps.hlsFlags));
+            try (OutputStream output = Files.newOutputStream(
+                    SettingsManager.getCacheDirectory().resolve(CACHE_FILE_NAME))) {
+                props.store(output, "SimplePhotoTool ffmpeg capability catalogue");
+            }
+        } catch (Exception e) {
+            System.err.println("[FFmpegCapabilities] Failed to write cache: " + e.getMessage());
+        }
+    }
+
+    private static Set<String> split(Properties props, String key) {
+        Set<String> values = new LinkedHashSet<>();
+        for (String value : props.getProperty(key, "").split(",")) {
+            if (!value.isEmpty()) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+}
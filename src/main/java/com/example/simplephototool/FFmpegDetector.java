@@ -1,5 +1,8 @@
 package com.example.simplephototool;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -9,6 +12,7 @@ import java.util.concurrent.TimeUnit;
 public class FFmpegDetector {
     private static Boolean available = null;
     private static String version = null;
+    private static Path binary = null;
 
     /**
      * Checks if FFmpeg is available and executable on the system.
@@ -42,17 +46,71 @@ public class FFmpegDetector {
     public static void refresh() {
         available = null;
         version = null;
+        binary = null;
         detectFFmpeg();
     }
 
+    /**
+     * Resolves the ffmpeg executable that {@code "ffmpeg"} refers to on the system PATH.
+     *
+     * @return Absolute path to the ffmpeg binary, or null if it is not on the PATH
+     */
+    public static synchronized Path resolveBinary() {
+        if (binary != null) {
+            return binary;
+        }
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return null;
+        }
+        boolean windows = System.getProperty("os.name").toLowerCase().contains("windows");
+        String executable = windows ? "ffmpeg.exe" : "ffmpeg";
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty()) continue;
+            try {
+                Path candidate = Path.of(dir, executable);
+                if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+                    binary = candidate.toRealPath();
+                    return binary;
+                }
+            } catch (Exception e) {
+                // Invalid PATH entry, keep looking
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds a fingerprint identifying the installed ffmpeg build: binary path,
+     * size, modification time and version line. Cached probe results are only
+     * reused while the fingerprint is unchanged.
+     *
+     * @return Fingerprint string, or null if ffmpeg cannot be located
+     */
+    public static String getFingerprint() {
+        Path ffmpeg = resolveBinary();
+        if (ffmpeg == null || !isAvailable()) {
+            return null;
+        }
+        try {
+            return ffmpeg + "|" + Files.size(ffmpeg) + "|" + Files.getLastModifiedTime(ffmpeg).toMillis()
+                    + "|" + getVersion();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * Performs the actual FFmpeg detection.
      */
-    private static void detectFFmpeg() {
+    private static synchronized void detectFFmpeg() {
+        if (available != null) {
+            return;
+        }
         try {
             ProcessBuilder pb = new ProcessBuilder("ffmpeg", "-version");
             pb.redirectErrorStream(true);
-            Process process = pb.start();
+            Process process = FFmpegProcesses.start(pb, null, "version");
 
             // Read version info
             java.io.BufferedReader reader = new java.io.BufferedReader(
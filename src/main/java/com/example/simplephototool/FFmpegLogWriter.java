@@ -0,0 +1,242 @@
+package com.example.simplephototool;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single background writer for all FFmpeg log files.
+ * Callers only enqueue lines; one daemon thread formats them, writes them in
+ * batches and flushes periodically, so logging cost per camera stays constant.
+ * Consecutive identical lines are collapsed into a repeat count.
+ */
+public class FFmpegLogWriter {
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int MAX_BATCH = 512;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static FFmpegLogWriter instance;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong droppedLines = new AtomicLong();
+    private final Thread writerThread;
+
+    private record Entry(Channel channel, long timeMillis, String message, boolean close) {
+    }
+
+    private FFmpegLogWriter() {
+        writerThread = new Thread(this::runWriter, "FFmpegLogWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Gets the shared log writer, starting its thread on first use.
+     *
+     * @return The shared writer
+     */
+    public static synchronized FFmpegLogWriter getInstance() {
+        if (instance == null) {
+            instance = new FFmpegLogWriter();
+        }
+        return instance;
+    }
+
+    /**
+     * Opens a log file for appending.
+     *
+     * @param file The log file
+     * @return Channel to write lines to
+     * @throws IOException if the file cannot be opened
+     */
+    public Channel open(Path file) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new Channel(file, writer);
+    }
+
+    /**
+     * Gets the number of queued lines waiting to be written.
+     *
+     * @return Queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of lines dropped because the queue was full.
+     *
+     * @return Dropped line count
+     */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    private void enqueue(Entry entry) {
+        if (entry.close()) {
+            try {
+                queue.put(entry); // Close markers must not be lost
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (!queue.offer(entry)) {
+            droppedLines.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writer loop: drains the queue in batches and flushes dirty files periodically.
+     */
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        Set<Channel> dirty = new HashSet<>();
+        long lastFlush = System.currentTimeMillis();
+
+        while (true) {
+            try {
+                Entry first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+
+                for (Entry entry : batch) {
+                    Channel channel = entry.channel();
+                    if (entry.close()) {
+                        channel.closeWriter();
+                        dirty.remove(channel);
+                    } else if (channel.write(entry.timeMillis(), entry.message())) {
+                        dirty.add(channel);
+                    }
+                }
+                batch.clear();
+
+                long now = System.currentTimeMillis();
+                if (now - lastFlush >= FLUSH_INTERVAL_MS) {
+                    for (Channel channel : dirty) {
+                        channel.flush();
+                    }
+                    dirty.clear();
+                    lastFlush = now;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                System.err.println("[FFmpegLogWriter] Error writing logs: " + e.getMessage());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * One open log file. Lines may be logged from any thread.
+     */
+    public final class Channel {
+        private final Path file;
+        private final BufferedWriter writer;
+        private String lastMessage;
+        private int repeats;
+        private boolean closed;
+
+        private Channel(Path file, BufferedWriter writer) {
+            this.file = file;
+            this.writer = writer;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Queues a line for writing with the current timestamp.
+         * A line identical to the previous one only increments a repeat count.
+         *
+         * @param message The line to write
+         */
+        public void log(String message) {
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (message.equals(lastMessage)) {
+                    repeats++;
+                    return;
+                }
+                flushRepeats(now);
+                lastMessage = message;
+            }
+            enqueue(new Entry(this, now, message, false));
+        }
+
+        /**
+         * Queues the file to be flushed and closed after all pending lines.
+         */
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                flushRepeats(System.currentTimeMillis());
+                closed = true;
+            }
+            enqueue(new Entry(this, 0, null, true));
+        }
+
+        private void flushRepeats(long now) {
+            if (repeats > 0) {
+                enqueue(new Entry(this, now, "(previous line repeated " + repeats + " more times)", false));
+                repeats = 0;
+            }
+        }
+
+        // Called only on the writer thread
+
+        private boolean write(long timeMillis, String message) {
+            try {
+                writer.write('[');
+                writer.write(TIME_FORMAT.format(Instant.ofEpochMilli(timeMillis)));
+                writer.write("] ");
+                writer.write(message);
+                writer.newLine();
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private void flush() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                // File may have been removed, keep other channels going
+            }
+        }
+
+        private void closeWriter() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // Ignore close errors
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.simplephototool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single place where ffmpeg processes are spawned.
+ * Records spawn and exit as {@link FlightEvents} so every process shows up in
+ * a flight recording with its purpose, command hash, lifetime and exit code.
+ * <p>
+ * Live processes are tracked so a JVM shutdown hook can stop any that are
+ * still running; no ffmpeg child outlives the application.
+ */
+public class FFmpegProcesses {
+
+    /** How long the shutdown hook gives ffmpeg to quit cleanly before killing it. */
+    private static final long SHUTDOWN_HOOK_TIMEOUT_MS = 1500;
+
+    private static final Set<Process> live = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(
+                () -> terminateAll(SHUTDOWN_HOOK_TIMEOUT_MS), "FFmpegProcesses-shutdown"));
+    }
+
+    /**
+     * Starts a process and records its spawn and, later, its exit.
+     *
+     * @param pb The configured process builder
+     * @param camera Camera name the process belongs to, or null for probes
+     * @param purpose What the process is for, e.g. "stream", "preview", "snapshot"
+     * @return The started process
+     * @throws IOException if the process cannot be started
+     */
+    public static Process start(ProcessBuilder pb, String camera, String purpose) throws IOException {
+        int commandHash = String.join(" ", pb.command()).hashCode();
+        FlightEvents.FFmpegSpawn spawn = new FlightEvents.FFmpegSpawn();
+        FlightEvents.FFmpegExit exit = new FlightEvents.FFmpegExit();
+        spawn.begin();
+        exit.begin();
+
+        Process process = pb.start();
+        live.add(process);
+        process.onExit().thenRun(() -> live.remove(process));
+
+        spawn.end();
+        if (spawn.shouldCommit()) {
+            spawn.camera = camera;
+            spawn.purpose = purpose;
+            spawn.commandHash = commandHash;
+            spawn.pid = process.pid();
+            spawn.commit();
+        }
+        if (exit.isEnabled()) {
+            process.onExit().thenAccept(p -> {
+                exit.end();
+                if (exit.shouldCommit()) {
+                    exit.camera = camera;
+                    exit.purpose = purpose;
+                    exit.commandHash = commandHash;
+                    exit.pid = p.pid();
+                    exit.exitCode = p.exitValue();
+                    exit.commit();
+                }
+            });
+        }
+        return process;
+    }
+
+    /**
+     * Asks ffmpeg to finish cleanly, as if "q" had been typed at its console.
+     * ffmpeg then closes its outputs properly (e.g. ends the HLS playlist) and exits.
+     * Does not wait; see {@link #awaitExit(Process, long)}.
+     *
+     * @param process The ffmpeg process
+     */
+    public static void requestQuit(Process process) {
+        if (process == null || !process.isAlive()) {
+            return;
+        }
+        try {
+            OutputStream stdin = process.getOutputStream();
+            stdin.write('q');
+            stdin.flush();
+            stdin.close();
+        } catch (IOException e) {
+            // stdin already closed or not a pipe; the deadline will force it
+        }
+    }
+
+    /**
+     * Kills a process from a timer if it is still running after a timeout. For
+     * callers that read ffmpeg's output to EOF: a timed {@code waitFor} after the
+     * read never applies, because the read only returns once ffmpeg exits.
+     *
+     * @param process The process
+     * @param timeout Time to let it run
+     * @param unit Unit of {@code timeout}
+     * @return Flag that becomes true if the process had to be killed
+     */
+    public static AtomicBoolean killAfter(Process process, long timeout, TimeUnit unit) {
+        AtomicBoolean killed = new AtomicBoolean();
+        CompletableFuture.delayedExecutor(Math.max(0, timeout), unit).execute(() -> {
+            if (process.isAlive()) {
+                killed.set(true);
+                process.destroyForcibly();
+            }
+        });
+        return killed;
+    }
+
+    /**
+     * Waits for a process to exit until a deadline, then kills it.
+     *
+     * @param process The process
+     * @param deadlineNanos {@link System#nanoTime()} value to give up at
+     * @return true if the process exited by itself
+     */
+    public static boolean awaitExit(Process process, long deadlineNanos) {
+        if (process == null) {
+            return true;
+        }
+        try {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining > 0 && process.waitFor(remaining, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!process.isAlive()) {
+            return true;
+        }
+        process.destroyForcibly();
+        return false;
+    }
+
+    /**
+     * Gets the number of ffmpeg processes started here that are still running.
+     *
+     * @return Live process count
+     */
+    public static int getLiveCount() {
+        return live.size();
+    }
+
+    /**
+     * Asks every live ffmpeg process to quit, waits for all of them against one
+     * deadline and kills whatever is left.
+     *
+     * @param timeoutMillis Total time to wait
+     * @return Number of processes that had to be killed
+     */
+    public static int terminateAll(long timeoutMillis) {
+        List<Process> processes = List.copyOf(live);
+        if (processes.isEmpty()) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Process process : processes) {
+            requestQuit(process);
+        }
+        int killed = 0;
+        for (Process process : processes) {
+            if (!awaitExit(process, deadline)) {
+                killed++;
+            }
+        }
+        if (killed > 0) {
+            System.err.println("[FFmpegProcesses] Killed " + killed + " of " + processes.size()
+                    + " ffmpeg processes that did not quit within " + timeoutMillis + " ms");
+        }
+        return killed;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.simplephototool;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * One block of FFmpeg {@code -progress} output: the encoder's view of a running
+ * process. Instances are immutable, so they can be published to other threads
+ * through a single volatile or atomic reference without locking.
+ *
+ * @param frame Frames output so far
+ * @param fps Current output frame rate
+ * @param droppedFrames Frames dropped by ffmpeg
+ * @param duplicatedFrames Frames duplicated by ffmpeg
+ * @param speed Encoding speed relative to real time (1.0 = real time), or 0 if unknown
+ * @param bitrateKbps Current output bitrate in kbit/s, or 0 if unknown
+ * @param totalSize Bytes written to the output so far
+ * @param outTimeMicros Output timestamp in microseconds
+ * @param ended true once ffmpeg reported {@code progress=end}
+ * @param receivedNanos {@link System#nanoTime()} when the block completed
+ */
+public record FFmpegProgress(long frame, double fps, long droppedFrames, long duplicatedFrames,
+                             double speed, double bitrateKbps, long totalSize, long outTimeMicros,
+                             boolean ended, long receivedNanos) {
+
+    /**
+     * Adds {@code -progress pipe:N -nostats} right after the ffmpeg executable.
+     * Use fd 1 when stdout is free and fd 2 when stdout carries media.
+     *
+     * @param command The command being built, starting with the ffmpeg executable
+     * @param fd Pipe to report progress on (1 = stdout, 2 = stderr)
+     */
+    public static void addArguments(List<String> command, int fd) {
+        command.addAll(1, List.of("-progress", "pipe:" + fd, "-nostats"));
+    }
+
+    /**
+     * Accumulates {@code key=value} lines and emits an {@link FFmpegProgress}
+     * when a block ends. Not thread-safe; use one parser per reader thread.
+     */
+    public static class Parser {
+        private final Consumer<FFmpegProgress> listener;
+        private long frame;
+        private double fps;
+        private long droppedFrames;
+        private long duplicatedFrames;
+        private double speed;
+        private double bitrateKbps;
+        private long totalSize;
+        private long outTimeMicros;
+
+        /**
+         * Creates a parser that reports completed blocks to the listener.
+         *
+         * @param listener Receives each completed progress block
+         */
+        public Parser(Consumer<FFmpegProgress> listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Feeds one output line to the parser.
+         *
+         * @param line A line read from the progress pipe
+         * @return true if the line was progress data, false if it was ordinary log output
+         */
+        public boolean accept(String line) {
+            int eq = line.indexOf('=');
+            if (eq <= 0 || line.indexOf(' ') >= 0 && line.indexOf(' ') < eq) {
+                return false;
+            }
+            String key = line.substring(0, eq);
+            String value = line.substring(eq + 1).trim();
+            switch (key) {
+                case "frame" -> frame = parseLong(value);
+                case "fps" -> fps = parseDouble(value);
+                case "drop_frames" -> droppedFrames = parseLong(value);
+                case "dup_frames" -> duplicatedFrames = parseLong(value);
+                case "speed" -> speed = parseDouble(value.replace("x", ""));
+                case "bitrate" -> bitrateKbps = parseDouble(value.replace("kbits/s", ""));
+                case "total_size" -> totalSize = parseLong(value);
+                case "out_time_us" -> outTimeMicros = parseLong(value);
+                case "progress" -> listener.accept(new FFmpegProgress(frame, fps, droppedFrames,
+                        duplicatedFrames, speed, bitrateKbps, totalSize, outTimeMicros,
+                        "end".equals(value), System.nanoTime()));
+                default -> {
+                    // Known keys such as out_time or stream_0_0_q are not tracked;
+                    // anything else with a space-free key is still progress output
+                    if (!key.startsWith("out_time") && !key.startsWith("stream_")) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static long parseLong(String value) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return 0; // "N/A" before the first frame
+            }
+        }
+
+        private static double parseDouble(String value) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+}
@@ -1,24 +1,19 @@
 package com.example.simplephototool;
 
-import com.sun.net.httpserver.HttpServer;
-import com.sun.net.httpserver.HttpExchange;
-
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.net.InetSocketAddress;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.net.ServerSocket;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -32,24 +27,39 @@ public class FFmpegStreamService {
     // Port for HTTP server to serve HLS files
     private static final int BASE_PORT = 49152;
     private static final AtomicInteger portCounter = new AtomicInteger(0);
+    private static final String PLAYLIST_NAME = HlsFileServer.PLAYLIST_NAME;
+    private static final long READY_TIMEOUT_MS = 10000;
+    private static final long READY_FALLBACK_POLL_MS = 250;
+    private static final long STOP_TIMEOUT_MS = 2000;
+    // Reader threads get at least this long after ffmpeg exits, even past the deadline
+    private static final long MIN_JOIN_MS = 100;
+    private static final int OUTPUT_RING_CAPACITY = 500;
+    private static final DateTimeFormatter LOG_FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
     private static final Path LOG_DIRECTORY = Path.of(System.getProperty("user.home"), "SimplePhotoTool_logs");
     
     private final Camera camera;
     private final Settings settings;
     private final CameraStrategy strategy;
+    private final CameraMetrics metrics;
     private int port;
     private Path hlsDirectory;
     private Path logFilePath;
-    private PrintWriter logFileWriter;
-    private HttpServer httpServer;
+    private volatile FFmpegLogWriter.Channel logChannel;
+    private HlsFileServer httpServer;
     
     private Process ffmpegProcess;
     private Thread monitorThread;
     private Thread errorThread;
+    private Thread readyThread;
+    private volatile WatchService playlistWatcher;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private Runnable onReadyCallback;
     private Runnable onErrorCallback;
-    private final List<String> ffmpegOutput = new ArrayList<>();
+    private final LineRingBuffer ffmpegOutput = new LineRingBuffer(OUTPUT_RING_CAPACITY);
+    private HlsSegmentType segmentType = HlsSegmentType.MPEG_TS;
+    private volatile FlightEvents.FirstFrame firstSegmentEvent;
+    private volatile boolean segmentsListed;
+    private volatile CompletableFuture<Void> opened = CompletableFuture.completedFuture(null);
     
     /**
      * Creates a new FFmpeg stream service for the specified camera.
@@ -63,6 +73,7 @@ public class FFmpegStreamService {
         this.camera = camera;
         this.settings = settings;
         this.strategy = CameraStrategyFactory.getStrategy();
+        this.metrics = CameraMetrics.forCamera(camera);
         this.port = findAvailablePort();
         System.out.println("[FFmpegStreamService] Allocated port " + port + " for '" + camera.getName() + "'");
     }
@@ -99,7 +110,7 @@ public class FFmpegStreamService {
      * @return The HTTP URL to the HLS playlist
      */
     public String getStreamUrl() {
-        return "http://127.0.0.1:" + port + "/stream.m3u8";
+        return "http://127.0.0.1:" + port + "/" + PLAYLIST_NAME;
     }
     
     /**
@@ -121,14 +132,40 @@ public class FFmpegStreamService {
     }
     
     /**
-     * Gets the collected FFmpeg output for diagnostics.
+     * Gets the most recent FFmpeg output for diagnostics.
+     * Only the last {@value #OUTPUT_RING_CAPACITY} lines are retained.
      *
-     * @return List of output lines
+     * @return List of output lines, oldest first
      */
     public List<String> getFFmpegOutput() {
-        synchronized (ffmpegOutput) {
-            return new ArrayList<>(ffmpegOutput);
-        }
+        return ffmpegOutput.snapshot();
+    }
+    
+    /**
+     * Gets the HLS segment type used by the current or last started stream.
+     *
+     * @return The segment type
+     */
+    public HlsSegmentType getSegmentType() {
+        return segmentType;
+    }
+    
+    /**
+     * Gets the total number of bytes served over HTTP (playlists, segments and init segment).
+     *
+     * @return Bytes served for this camera since startup
+     */
+    public long getBytesServed() {
+        return metrics.getHlsBytesServed();
+    }
+    
+    /**
+     * Gets the number of media segments served over HTTP.
+     *
+     * @return Segments served for this camera since startup
+     */
+    public long getSegmentsServed() {
+        return metrics.getSegmentsServed();
     }
     
     /**
@@ -156,9 +193,17 @@ public class FFmpegStreamService {
             createLogFile(sanitizedName);
             
             // Start HTTP server to serve HLS files
-            startHttpServer();
+            httpServer = new HlsFileServer(camera.getName(), hlsDirectory, metrics);
+            httpServer.start(port);
+            
+            // Watch the HLS directory before FFmpeg starts so no playlist event is missed
+            playlistWatcher = hlsDirectory.getFileSystem().newWatchService();
+            hlsDirectory.register(playlistWatcher,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
             
-            ProcessBuilder pb = strategy.buildFFmpegHttpStreamCommand(camera, settings, port, hlsDirectory.toString());
+            segmentType = HlsSegmentType.resolve(settings.getHlsSegmentType());
+            ProcessBuilder pb = strategy.buildFFmpegHttpStreamCommand(camera, settings, port, hlsDirectory.toString(),
+                    segmentType);
             // Don't merge streams - we want to capture stderr separately
             pb.redirectErrorStream(false);
             
@@ -166,6 +211,7 @@ public class FFmpegStreamService {
             System.out.println("=== FFmpeg Stream Start ===");
             System.out.println("Camera: " + camera.getName());
             System.out.println("HLS Path: " + hlsDirectory);
+            System.out.println("Segment type: " + segmentType.getDisplayName());
             System.out.println("HTTP Server: http://127.0.0.1:" + port);
             System.out.println("Command: " + String.join(" ", pb.command()));
             System.out.println("Log file: " + logFilePath);
@@ -175,23 +221,37 @@ public class FFmpegStreamService {
             logToFile("=== FFmpeg Stream Start ===");
             logToFile("Camera: " + camera.getName());
             logToFile("HLS Path: " + hlsDirectory);
+            logToFile("Segment type: " + segmentType.getDisplayName());
             logToFile("HTTP Server: http://127.0.0.1:" + port);
             logToFile("Command: " + String.join(" ", pb.command()));
             logToFile("===========================");
             
-            ffmpegProcess = pb.start();
+            metrics.clearProgress(CameraMetrics.Pipeline.STREAM);
+            metrics.setState(CameraMetrics.State.STARTING);
+            segmentsListed = false;
+            opened = new CompletableFuture<>();
+            
+            FlightEvents.FirstFrame firstSegment = new FlightEvents.FirstFrame();
+            firstSegment.begin();
+            firstSegmentEvent = firstSegment;
+            ffmpegProcess = FFmpegProcesses.start(pb, camera.getName(), "stream");
             running.set(true);
+            metrics.setStreamProcess(ffmpegProcess.pid(), settings.getEncoderType().getDisplayName());
             
-            // Thread to read stdout
-            monitorThread = new Thread(() -> {
+            // Thread to read stdout, where -progress reports arrive as key=value blocks
+            FFmpegProgress.Parser progress = metrics.newParser(CameraMetrics.Pipeline.STREAM);
+            monitorThread = IoThreads.start("FFmpeg-stdout-" + camera.getName(), () -> {
                 try (BufferedReader reader = new BufferedReader(
                         new InputStreamReader(ffmpegProcess.getInputStream()))) {
                     String line;
                     while (running.get() && (line = reader.readLine()) != null) {
-                        synchronized (ffmpegOutput) {
-                            ffmpegOutput.add("[stdout] " + line);
+                        if (progress.accept(line)) {
+                            continue; // Published to CameraMetrics, too frequent to log
+                        }
+                        ffmpegOutput.add("[stdout] " + line);
+                        if (settings.getVerboseOutput()) {
+                            System.out.println("[FFmpeg-" + camera.getName() + "-stdout] " + line);
                         }
-                        System.out.println("[FFmpeg-" + camera.getName() + "-stdout] " + line);
                         logToFile("[stdout] " + line);
                     }
                 } catch (Exception e) {
@@ -199,36 +259,19 @@ public class FFmpegStreamService {
                     logToFile("[ERROR] Error reading stdout: " + e.getMessage());
                 }
             });
-            monitorThread.setDaemon(true);
-            monitorThread.setName("FFmpeg-stdout-" + camera.getName());
-            monitorThread.start();
             
-            // Thread to read stderr (where FFmpeg sends most of its output)
-            errorThread = new Thread(() -> {
+            // Thread to read stderr (where FFmpeg sends most of its output).
+            // Only drains and logs - readiness is signalled by the playlist watcher.
+            errorThread = IoThreads.start("FFmpeg-stderr-" + camera.getName(), () -> {
                 try (BufferedReader reader = new BufferedReader(
                         new InputStreamReader(ffmpegProcess.getErrorStream()))) {
                     String line;
-                    boolean notifiedReady = false;
-                    
                     while (running.get() && (line = reader.readLine()) != null) {
-                        synchronized (ffmpegOutput) {
-                            ffmpegOutput.add("[stderr] " + line);
+                        ffmpegOutput.add("[stderr] " + line);
+                        if (settings.getVerboseOutput()) {
+                            System.out.println("[FFmpeg-" + camera.getName() + "-stderr] " + line);
                         }
-                        System.out.println("[FFmpeg-" + camera.getName() + "-stderr] " + line);
                         logToFile("[stderr] " + line);
-                        
-                        // Detect when FFmpeg starts writing HLS segments
-                        // Look for "Opening" which indicates HLS segment file creation
-                        if (!notifiedReady && 
-                                ((line.contains("Opening") && line.contains(".ts")) || 
-                                 line.contains("Output #0"))) {
-                            notifiedReady = true;
-                            if (onReadyCallback != null) {
-                                // Wait for first segment to be written
-                                waitForPlaylist();
-                                onReadyCallback.run();
-                            }
-                        }
                     }
                 } catch (Exception e) {
                     System.err.println("Error reading FFmpeg stderr: " + e.getMessage());
@@ -241,22 +284,37 @@ public class FFmpegStreamService {
                     System.err.println("=== FFmpeg Process Ended ===");
                     System.err.println("Camera: " + camera.getName());
                     System.err.println("Exit code: " + exitCode);
-                    System.err.println("Collected output lines: " + ffmpegOutput.size());
+                    System.err.println("Collected output lines: " + ffmpegOutput.getTotalLines());
+                    if (!settings.getVerboseOutput()) {
+                        // Output is not echoed live, so show the tail that explains the exit
+                        for (String recent : ffmpegOutput.snapshot()) {
+                            System.err.println("  " + recent);
+                        }
+                    }
                     System.err.println("============================");
                     
                     logToFile("=== FFmpeg Process Ended ===");
                     logToFile("Exit code: " + exitCode);
-                    logToFile("Collected output lines: " + ffmpegOutput.size());
+                    logToFile("Collected output lines: " + ffmpegOutput.getTotalLines());
                     logToFile("============================");
                     
+                    metrics.setState(CameraMetrics.State.FAILED);
+                    metrics.setStreamProcess(-1, null);
                     if (exitCode != 0 && onErrorCallback != null) {
                         onErrorCallback.run();
                     }
                 }
             });
-            errorThread.setDaemon(true);
-            errorThread.setName("FFmpeg-stderr-" + camera.getName());
-            errorThread.start();
+            
+            // Thread to signal readiness as soon as the first segment is listed
+            CompletableFuture<Void> currentOpened = opened;
+            readyThread = IoThreads.start("FFmpeg-ready-" + camera.getName(), () -> {
+                try {
+                    awaitFirstSegment();
+                } finally {
+                    currentOpened.complete(null);
+                }
+            });
             
             return true;
             
@@ -264,43 +322,141 @@ public class FFmpegStreamService {
             System.err.println("Failed to start FFmpeg stream for " + camera.getName() + ": " + e.getMessage());
             e.printStackTrace();
             running.set(false);
+            closePlaylistWatcher();
+            if (httpServer != null) {
+                httpServer.stop();
+                httpServer = null;
+            }
+            metrics.setState(CameraMetrics.State.FAILED);
+            opened.complete(null);
             return false;
         }
     }
     
     /**
-     * Waits for the HLS playlist file to be created and have content.
+     * Gets a future that completes once the last started stream has listed its first
+     * segment, failed, or was stopped, i.e. once ffmpeg is done opening the device.
+     *
+     * @return The future; already complete if no start is in progress
      */
-    private void waitForPlaylist() {
-        if (hlsDirectory == null) return;
+    public CompletableFuture<Void> opened() {
+        return opened;
+    }
+    
+    /**
+     * Waits for FFmpeg to publish a playlist that lists at least one complete segment,
+     * then invokes the ready callback. Runs on its own thread so stderr keeps draining.
+     * <p>
+     * FFmpeg only adds a segment to the playlist once the segment is closed, and it
+     * replaces the playlist by renaming a temp file, so each update arrives as a single
+     * create event. The poll timeout is a fallback for platforms whose WatchService polls.
+     * <p>
+     * If ffmpeg exits first, the stderr thread reports the failure. If no segment is
+     * listed before the timeout, the stream is reported as failed instead of ready.
+     */
+    private void awaitFirstSegment() {
+        WatchService watcher = playlistWatcher;
+        Path directory = hlsDirectory;
+        Process process = ffmpegProcess;
+        if (watcher == null || directory == null || process == null) return;
         
-        Path playlist = hlsDirectory.resolve("stream.m3u8");
-        int maxWait = 10000; // 10 seconds max
-        int waited = 0;
-        int interval = 200;
+        Path playlist = directory.resolve(PLAYLIST_NAME);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READY_TIMEOUT_MS);
+        boolean ready = false;
         
-        while (waited < maxWait && running.get()) {
-            if (Files.exists(playlist)) {
-                try {
-                    // Wait for at least one segment to be listed
-                    String content = Files.readString(playlist);
-                    if (content.contains(".ts")) {
-                        System.out.println("HLS playlist ready: " + playlist);
-                        return;
-                    }
-                } catch (Exception e) {
-                    // File might still be being written
+        try {
+            while (running.get() && process.isAlive() && !(ready = hasCompleteSegment(playlist))) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                WatchKey key = watcher.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(READY_FALLBACK_POLL_MS)),
+                        TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    // Events only tell us to look again; the playlist content decides
+                    key.pollEvents();
+                    key.reset();
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ClosedWatchServiceException e) {
+            return; // Stream stopped while waiting
+        } finally {
+            closePlaylistWatcher();
+        }
+        
+        FlightEvents.FirstFrame event = firstSegmentEvent;
+        firstSegmentEvent = null;
+        if (!running.get() || !process.isAlive()) {
+            return; // Stopped, or the stderr thread reports the exit
+        }
+        if (!ready) {
+            System.err.println("HLS playlist wait timeout for " + camera.getName() + ", no segment after "
+                    + READY_TIMEOUT_MS + " ms");
+            logToFile("[ERROR] HLS playlist wait timeout");
+            metrics.setState(CameraMetrics.State.FAILED);
+            if (onErrorCallback != null) {
+                onErrorCallback.run();
+            }
+            return;
+        }
+        
+        segmentsListed = true;
+        System.out.println("HLS playlist ready: " + playlist);
+        logToFile("HLS playlist ready");
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.camera = camera.getName();
+                event.pipeline = "stream";
+                event.commit();
+            }
+        }
+        metrics.setState(CameraMetrics.State.RUNNING);
+        if (onReadyCallback != null) {
+            onReadyCallback.run();
+        }
+    }
+    
+    /**
+     * Tells whether the current stream has listed at least one segment in its playlist,
+     * i.e. ffmpeg produced media the player could fetch.
+     *
+     * @return true once the stream was ready
+     */
+    public boolean hasListedSegments() {
+        return segmentsListed;
+    }
+    
+    /**
+     * Checks whether the playlist exists and lists at least one segment.
+     */
+    private static boolean hasCompleteSegment(Path playlist) {
+        if (!Files.exists(playlist)) {
+            return false;
+        }
+        try {
+            return Files.readString(playlist).contains("#EXTINF");
+        } catch (Exception e) {
+            return false; // Replaced while reading, next event will retry
+        }
+    }
+    
+    /**
+     * Closes the playlist watcher if it is still open.
+     */
+    private void closePlaylistWatcher() {
+        WatchService watcher = playlistWatcher;
+        playlistWatcher = null;
+        if (watcher != null) {
             try {
-                Thread.sleep(interval);
-                waited += interval;
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return;
+                watcher.close();
+            } catch (Exception e) {
+                // Ignore - only releases the inotify handle
             }
         }
-        System.out.println("HLS playlist wait timeout, proceeding anyway");
     }
     
     /**
@@ -312,11 +468,11 @@ public class FFmpegStreamService {
             Files.createDirectories(LOG_DIRECTORY);
             
             // Create log file with timestamp
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            String timestamp = LocalDateTime.now().format(LOG_FILE_TIMESTAMP);
             String logFileName = "ffmpeg_" + sanitizedCameraName + "_" + timestamp + ".log";
             logFilePath = LOG_DIRECTORY.resolve(logFileName);
             
-            logFileWriter = new PrintWriter(new BufferedWriter(new FileWriter(logFilePath.toFile(), true)));
+            logChannel = FFmpegLogWriter.getInstance().open(logFilePath);
             logToFile("=== FFmpeg Log Started at " + LocalDateTime.now() + " ===");
             logToFile("Camera: " + camera.getName());
             logToFile("Device ID: " + camera.getDeviceId());
@@ -324,144 +480,86 @@ public class FFmpegStreamService {
             System.out.println("[FFmpegStreamService] Log file created: " + logFilePath);
         } catch (Exception e) {
             System.err.println("[FFmpegStreamService] Failed to create log file: " + e.getMessage());
-            logFileWriter = null;
+            logChannel = null;
         }
     }
     
     /**
-     * Writes a line to the log file with timestamp.
+     * Queues a line for the shared background log writer, which adds the timestamp.
      */
     private void logToFile(String message) {
-        if (logFileWriter != null) {
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss.SSS"));
-            logFileWriter.println("[" + timestamp + "] " + message);
-            logFileWriter.flush();
+        FFmpegLogWriter.Channel channel = logChannel;
+        if (channel != null) {
+            channel.log(message);
         }
     }
     
     /**
-     * Closes the log file writer.
+     * Closes the log file once pending lines are written.
      */
     private void closeLogFile() {
-        if (logFileWriter != null) {
-            logToFile("=== FFmpeg Log Ended at " + LocalDateTime.now() + " ===");
-            logFileWriter.close();
-            logFileWriter = null;
+        FFmpegLogWriter.Channel channel = logChannel;
+        if (channel != null) {
+            channel.log("=== FFmpeg Log Ended at " + LocalDateTime.now() + " ===");
+            channel.close();
+            logChannel = null;
             System.out.println("[FFmpegStreamService] Log file closed: " + logFilePath);
         }
     }
     
     /**
-     * Starts a simple HTTP server to serve HLS files.
+     * Stops the FFmpeg streaming process and HTTP server.
      */
-    private void startHttpServer() throws Exception {
-        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
-        httpServer.createContext("/", exchange -> {
-            String requestPath = exchange.getRequestURI().getPath();
-            String method = exchange.getRequestMethod();
-            
-            if (requestPath.equals("/")) {
-                requestPath = "/stream.m3u8";
-            }
-            
-            // Remove leading slash
-            String filename = requestPath.substring(1);
-            Path filePath = hlsDirectory.resolve(filename);
-            File file = filePath.toFile();
-            
-            if (file.exists() && file.isFile()) {
-                // Determine content type
-                String contentType = "application/octet-stream";
-                if (filename.endsWith(".m3u8")) {
-                    contentType = "application/vnd.apple.mpegurl";
-                } else if (filename.endsWith(".ts")) {
-                    contentType = "video/mp2t";
-                }
-                
-                exchange.getResponseHeaders().set("Content-Type", contentType);
-                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                
-                // Handle HEAD requests without body
-                if ("HEAD".equalsIgnoreCase(method)) {
-                    exchange.sendResponseHeaders(200, -1);
-                } else {
-                    exchange.sendResponseHeaders(200, file.length());
-                    try (FileInputStream fis = new FileInputStream(file);
-                         OutputStream os = exchange.getResponseBody()) {
-                        byte[] buffer = new byte[8192];
-                        int bytesRead;
-                        while ((bytesRead = fis.read(buffer)) != -1) {
-                            os.write(buffer, 0, bytesRead);
-                        }
-                    }
-                }
-            } else {
-                String response = "File not found: " + filename;
-                if ("HEAD".equalsIgnoreCase(method)) {
-                    exchange.sendResponseHeaders(404, -1);
-                } else {
-                    exchange.sendResponseHeaders(404, response.length());
-                    try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(response.getBytes());
-                    }
-                }
-            }
-            exchange.close();
-        });
-        httpServer.setExecutor(Executors.newCachedThreadPool());
-        httpServer.start();
-        System.out.println("HTTP server started on port " + port);
+    public void stop() {
+        requestStop();
+        awaitStop(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_TIMEOUT_MS));
     }
     
     /**
-     * Stops the FFmpeg streaming process and HTTP server.
+     * First half of {@link #stop()}: stops the HTTP server and asks ffmpeg to quit,
+     * without waiting. Stopping many streams this way and then calling
+     * {@link #awaitStop(long)} on each lets them all shut down at the same time.
      */
-    public void stop() {
+    public void requestStop() {
         System.out.println("[FFmpegStreamService] stop() called for '" + camera.getName() + "'");
         running.set(false);
         
         // Stop HTTP server
         if (httpServer != null) {
             System.out.println("[FFmpegStreamService] Stopping HTTP server on port " + port);
-            httpServer.stop(0);
+            httpServer.stop();
             httpServer = null;
             System.out.println("HTTP server stopped");
         }
         
-        if (ffmpegProcess != null && ffmpegProcess.isAlive()) {
-            ffmpegProcess.destroy();
-            try {
-                // Wait for process to terminate
-                ffmpegProcess.waitFor(java.util.concurrent.TimeUnit.SECONDS.toMillis(2), 
-                        java.util.concurrent.TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            
-            // Force kill if still alive
-            if (ffmpegProcess.isAlive()) {
-                ffmpegProcess.destroyForcibly();
-            }
+        // "q" lets ffmpeg finish the current segment and playlist instead of being cut off
+        FFmpegProcesses.requestQuit(ffmpegProcess);
+    }
+    
+    /**
+     * Second half of {@link #stop()}: waits for ffmpeg to exit, kills it if it is
+     * still running at the deadline, and cleans up.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} value to stop waiting at
+     */
+    public void awaitStop(long deadlineNanos) {
+        if (ffmpegProcess != null && !FFmpegProcesses.awaitExit(ffmpegProcess, deadlineNanos)) {
+            System.err.println("[FFmpegStreamService] ffmpeg for '" + camera.getName() + "' did not quit in time, killed");
         }
         
-        if (monitorThread != null && monitorThread.isAlive()) {
-            monitorThread.interrupt();
-            try {
-                monitorThread.join(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
+        joinUntil(monitorThread, deadlineNanos);
+        joinUntil(errorThread, deadlineNanos);
         
-        if (errorThread != null && errorThread.isAlive()) {
-            errorThread.interrupt();
-            try {
-                errorThread.join(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+        // Wakes the readiness thread if it is still waiting for the first segment
+        closePlaylistWatcher();
+        if (readyThread != null && readyThread.isAlive()) {
+            readyThread.interrupt();
         }
         
+        metrics.clearProgress(CameraMetrics.Pipeline.STREAM);
+        metrics.setStreamProcess(-1, null);
+        metrics.setState(CameraMetrics.State.STOPPED);
+        
         // Clean up HLS directory
         cleanupHlsDirectory();
         
@@ -471,10 +569,27 @@ public class FFmpegStreamService {
         ffmpegProcess = null;
         monitorThread = null;
         errorThread = null;
+        readyThread = null;
         
         System.out.println("Stopped FFmpeg stream for " + camera.getName());
     }
     
+    /**
+     * Interrupts a reader thread and waits for it until the deadline, at least briefly.
+     */
+    private static void joinUntil(Thread thread, long deadlineNanos) {
+        if (thread == null || !thread.isAlive()) {
+            return;
+        }
+        thread.interrupt();
+        long remainingMillis = Math.max(MIN_JOIN_MS, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+        try {
+            thread.join(remainingMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
     /**
      * Cleans up HLS segment files.
      */
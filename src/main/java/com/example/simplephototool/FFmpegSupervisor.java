@@ -0,0 +1,300 @@
+package com.example.simplephototool;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Watches long-running ffmpeg pipelines (HLS streams and raw previews) and restarts
+ * them when they crash or stop producing frames.
+ * <p>
+ * A pipeline counts as failed when its owner reports it, when its process is no
+ * longer alive, or when the frame counter in its {@code -progress} reports has not
+ * advanced for {@link #STALL_TIMEOUT_MS}. Restarts are delayed with capped
+ * exponential backoff and jitter, so a camera that drops off the USB bus is retried
+ * within seconds without every camera on a hub retrying in lockstep. A camera that
+ * fails {@link #QUARANTINE_FAILURES} times within {@link #QUARANTINE_WINDOW_MS} is
+ * quarantined and left alone for {@link #QUARANTINE_MS}.
+ * <p>
+ * When {@link DeviceInventory} reports a camera unplugged, its pipelines wait for the
+ * device instead of retrying, and restart as soon as it is plugged back in, even
+ * from quarantine.
+ */
+public class FFmpegSupervisor implements DeviceInventory.Listener {
+
+    /** How often pipelines are checked. */
+    static final long CHECK_INTERVAL_MS = 1000;
+    /** Time a freshly started pipeline gets to open the device and produce a frame. */
+    static final long STARTUP_GRACE_MS = 15_000;
+    /** Time without a new frame after which a running pipeline counts as stalled. */
+    static final long STALL_TIMEOUT_MS = 8_000;
+    /** First restart delay; doubled for each consecutive failure. */
+    static final long INITIAL_BACKOFF_MS = 1_000;
+    /** Upper bound for the restart delay. */
+    static final long MAX_BACKOFF_MS = 30_000;
+    /** Running this long without failing resets the backoff. */
+    static final long STABLE_AFTER_MS = 60_000;
+    static final int QUARANTINE_FAILURES = 5;
+    static final long QUARANTINE_WINDOW_MS = 120_000;
+    static final long QUARANTINE_MS = 300_000;
+    /** Delay after a device reappears, so udev can finish setting it up. */
+    static final long REPLUG_SETTLE_MS = 500;
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final FFmpegSupervisor instance = new FFmpegSupervisor();
+
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FFmpegSupervisor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FFmpegSupervisor() {
+        scheduler.scheduleWithFixedDelay(this::checkAll, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the shared supervisor.
+     *
+     * @return The supervisor instance
+     */
+    public static FFmpegSupervisor getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts supervising a pipeline. Call {@link Watch#started()} each time its
+     * process is (re)started and {@link Watch#cancel()} when the user stops it.
+     *
+     * @param camera The camera the pipeline belongs to
+     * @param pipeline Which pipeline, used to read its progress reports
+     * @param alive Tells whether the pipeline's ffmpeg process is running
+     * @param restart Stops what is left of the pipeline and starts it again; called on the supervisor thread
+     * @param status Receives short status texts for the UI, such as the next restart time
+     * @return The watch for this pipeline
+     */
+    public Watch watch(Camera camera, CameraMetrics.Pipeline pipeline, BooleanSupplier alive,
+                       Runnable restart, Consumer<String> status) {
+        Watch watch = new Watch(camera, pipeline, alive, restart, status);
+        watches.add(watch);
+        return watch;
+    }
+
+    @Override
+    public void devicesChanged(List<CameraDevice> added, List<CameraDevice> removed) {
+        for (Watch watch : watches) {
+            String deviceId = watch.camera.getDeviceId();
+            for (CameraDevice device : removed) {
+                if (device.getDeviceId().equals(deviceId)) {
+                    scheduler.execute(watch::unplugged);
+                }
+            }
+            for (CameraDevice device : added) {
+                if (device.getDeviceId().equals(deviceId)) {
+                    scheduler.execute(watch::replugged);
+                }
+            }
+        }
+    }
+    
+    private void checkAll() {
+        for (Watch watch : watches) {
+            try {
+                watch.check();
+            } catch (Exception e) {
+                System.err.println("[FFmpegSupervisor] Check failed for " + watch.camera.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Backoff for the given consecutive failure: 1 s, 2 s, 4 s ... capped, +/- 20% jitter.
+     */
+    static long backoffMillis(int failures) {
+        long base = INITIAL_BACKOFF_MS << Math.min(failures - 1, 20);
+        long capped = Math.min(MAX_BACKOFF_MS, base);
+        return (long) (capped * (0.8 + ThreadLocalRandom.current().nextDouble() * 0.4));
+    }
+
+    /**
+     * Supervision state for one pipeline.
+     */
+    public class Watch {
+        private final Camera camera;
+        private final CameraMetrics.Pipeline pipeline;
+        private final CameraMetrics metrics;
+        private final BooleanSupplier alive;
+        private final Runnable restart;
+        private final Consumer<String> status;
+        // Failure times within the quarantine window, oldest first
+        private final Deque<Long> recentFailures = new ArrayDeque<>();
+
+        private volatile boolean cancelled;
+        private boolean restartPending;
+        private boolean unplugged;
+        private ScheduledFuture<?> pendingRestart;
+        private long startedNanos;
+        private long lastFrame = -1;
+        private long lastAdvanceNanos;
+        private int consecutiveFailures;
+
+        private Watch(Camera camera, CameraMetrics.Pipeline pipeline, BooleanSupplier alive,
+                      Runnable restart, Consumer<String> status) {
+            this.camera = camera;
+            this.pipeline = pipeline;
+            this.metrics = CameraMetrics.forCamera(camera);
+            this.alive = alive;
+            this.restart = restart;
+            this.status = status;
+            started();
+        }
+
+        /**
+         * Marks the pipeline as just started, which restarts the startup grace period.
+         */
+        public synchronized void started() {
+            startedNanos = System.nanoTime();
+            lastAdvanceNanos = startedNanos;
+            lastFrame = -1;
+        }
+
+        /**
+         * Reports that the pipeline's process ended or could not be started.
+         *
+         * @param reason Short description for the log
+         */
+        public void failed(String reason) {
+            scheduler.execute(() -> fail(reason));
+        }
+
+        /**
+         * Stops supervising, e.g. because the user stopped the preview.
+         */
+        public void cancel() {
+            cancelled = true;
+            watches.remove(this);
+            metrics.setQuarantined(false);
+        }
+
+        private synchronized void check() {
+            if (cancelled || restartPending) {
+                return;
+            }
+            long now = System.nanoTime();
+            long sinceStart = TimeUnit.NANOSECONDS.toMillis(now - startedNanos);
+
+            FFmpegProgress progress = metrics.getProgress(pipeline);
+            // Reports left over from before the last start don't count
+            if (progress != null && progress.receivedNanos() >= startedNanos && progress.frame() != lastFrame) {
+                lastFrame = progress.frame();
+                lastAdvanceNanos = now;
+            }
+            if (consecutiveFailures > 0 && sinceStart >= STABLE_AFTER_MS && lastFrame >= 0) {
+                consecutiveFailures = 0;
+            }
+            if (sinceStart < STARTUP_GRACE_MS) {
+                return;
+            }
+            if (!alive.getAsBoolean()) {
+                fail("process not running");
+            } else if (TimeUnit.NANOSECONDS.toMillis(now - lastAdvanceNanos) >= STALL_TIMEOUT_MS) {
+                fail(lastFrame < 0 ? "no frames since start" : "no new frames for "
+                        + TimeUnit.NANOSECONDS.toSeconds(now - lastAdvanceNanos) + " s");
+            }
+        }
+
+        private synchronized void fail(String reason) {
+            if (cancelled || restartPending) {
+                return;
+            }
+            restartPending = true;
+            long now = System.currentTimeMillis();
+            recentFailures.addLast(now);
+            while (!recentFailures.isEmpty() && now - recentFailures.peekFirst() > QUARANTINE_WINDOW_MS) {
+                recentFailures.removeFirst();
+            }
+
+            long delay;
+            if (recentFailures.size() >= QUARANTINE_FAILURES) {
+                delay = QUARANTINE_MS;
+                recentFailures.clear();
+                consecutiveFailures = 0;
+                metrics.setQuarantined(true);
+                String until = LocalTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delay)).format(TIME);
+                System.err.println("[FFmpegSupervisor] " + camera.getName() + " " + pipeline
+                        + " failed " + QUARANTINE_FAILURES + " times, quarantined until " + until + " (" + reason + ")");
+                status.accept("⚠ Quarantined until " + until);
+            } else {
+                consecutiveFailures++;
+                delay = backoffMillis(consecutiveFailures);
+                System.err.println("[FFmpegSupervisor] " + camera.getName() + " " + pipeline + " failed ("
+                        + reason + "), restart " + consecutiveFailures + " in " + delay + " ms");
+                status.accept("⟳ Restarting in " + Math.max(1, Math.round(delay / 1000.0)) + " s");
+            }
+            pendingRestart = scheduler.schedule(this::restart, delay, TimeUnit.MILLISECONDS);
+        }
+        
+        /**
+         * The camera was unplugged: drop any scheduled restart and wait for it to return.
+         */
+        private synchronized void unplugged() {
+            if (cancelled) {
+                return;
+            }
+            if (pendingRestart != null) {
+                pendingRestart.cancel(false);
+                pendingRestart = null;
+            }
+            restartPending = true;
+            unplugged = true;
+            System.err.println("[FFmpegSupervisor] " + camera.getName() + " " + pipeline + " unplugged, waiting for device");
+            status.accept("⏏ Unplugged, waiting for camera");
+        }
+        
+        /**
+         * The camera is back: restart with a clean failure history.
+         */
+        private synchronized void replugged() {
+            if (cancelled || !unplugged) {
+                return;
+            }
+            unplugged = false;
+            consecutiveFailures = 0;
+            recentFailures.clear();
+            System.out.println("[FFmpegSupervisor] " + camera.getName() + " plugged back in");
+            status.accept("⟳ Camera back, restarting");
+            pendingRestart = scheduler.schedule(this::restart, REPLUG_SETTLE_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private void restart() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                restartPending = false;
+                pendingRestart = null;
+                started();
+            }
+            metrics.setQuarantined(false);
+            metrics.recordRestart();
+            System.out.println("[FFmpegSupervisor] Restarting " + pipeline + " for " + camera.getName());
+            try {
+                restart.run();
+            } catch (Exception e) {
+                failed("restart threw " + e.getMessage());
+            }
+        }
+    }
+}
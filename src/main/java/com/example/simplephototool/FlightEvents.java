@@ -0,0 +1,164 @@
+package com.example.simplephototool;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for capture, preview and stream lifecycle.
+ * Record with e.g. {@code -XX:StartFlightRecording=filename=spt.jfr,settings=profile};
+ * when no recording is running each event costs a single enabled check.
+ * All events are in the "SimplePhotoTool" category next to JFR's GC and thread data.
+ */
+public final class FlightEvents {
+
+    private static final String CATEGORY = "SimplePhotoTool";
+
+    private FlightEvents() {
+    }
+
+    @Name("com.example.simplephototool.FFmpegSpawn")
+    @Label("FFmpeg Spawn")
+    @Description("Time spent starting an ffmpeg process")
+    @Category({CATEGORY, "FFmpeg"})
+    @StackTrace(false)
+    static class FFmpegSpawn extends Event {
+        @Label("Camera")
+        public String camera;
+
+        @Label("Purpose")
+        @Description("stream, preview, snapshot or probe")
+        public String purpose;
+
+        @Label("Command Hash")
+        public int commandHash;
+
+        @Label("PID")
+        public long pid;
+    }
+
+    @Name("com.example.simplephototool.FFmpegExit")
+    @Label("FFmpeg Exit")
+    @Description("Lifetime of an ffmpeg process, from spawn to exit")
+    @Category({CATEGORY, "FFmpeg"})
+    @StackTrace(false)
+    static class FFmpegExit extends Event {
+        @Label("Camera")
+        public String camera;
+
+        @Label("Purpose")
+        public String purpose;
+
+        @Label("Command Hash")
+        public int commandHash;
+
+        @Label("PID")
+        public long pid;
+
+        @Label("Exit Code")
+        public int exitCode;
+    }
+
+    @Name("com.example.simplephototool.FirstFrame")
+    @Label("First Frame")
+    @Description("Time from opening a device to the first frame or HLS segment")
+    @Category({CATEGORY, "Preview"})
+    @StackTrace(false)
+    static class FirstFrame extends Event {
+        @Label("Camera")
+        public String camera;
+
+        @Label("Pipeline")
+        public String pipeline;
+    }
+
+    @Name("com.example.simplephototool.SnapshotTrigger")
+    @Label("Snapshot Trigger")
+    @Description("A snapshot batch, from trigger until every camera finished")
+    @Category({CATEGORY, "Snapshot"})
+    static class SnapshotTrigger extends Event {
+        @Label("Cameras")
+        public int cameras;
+
+        @Label("Succeeded")
+        public int succeeded;
+    }
+
+    @Name("com.example.simplephototool.SnapshotCapture")
+    @Label("Snapshot Capture")
+    @Description("Capture, encode and write of one camera's snapshot by ffmpeg")
+    @Category({CATEGORY, "Snapshot"})
+    @StackTrace(false)
+    static class SnapshotCapture extends Event {
+        @Label("Camera")
+        public String camera;
+
+        @Label("Queue Delay")
+        @Description("Time between the trigger and this capture starting, in milliseconds")
+        public long queueDelayMillis;
+
+        @Label("Output File")
+        public String outputPath;
+
+        @Label("File Size")
+        @DataAmount
+        public long fileSize;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("com.example.simplephototool.HlsSegmentServed")
+    @Label("HLS Segment Served")
+    @Description("One HLS playlist, init or media segment served to the player")
+    @Category({CATEGORY, "Stream"})
+    @StackTrace(false)
+    static class HlsSegmentServed extends Event {
+        @Label("Camera")
+        public String camera;
+
+        @Label("File")
+        public String file;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("com.example.simplephototool.PreviewFrameDropped")
+    @Label("Preview Frame Dropped")
+    @Description("A raw preview frame that was read but not displayed")
+    @Category({CATEGORY, "Preview"})
+    @StackTrace(false)
+    static class PreviewFrameDropped extends Event {
+        @Label("Camera")
+        public String camera;
+
+        @Label("Reason")
+        public String reason;
+    }
+
+    @Name("com.example.simplephototool.FrameUpload")
+    @Label("Frame Upload")
+    @Description("Copying one preview frame into its image on the FX thread")
+    @Category({CATEGORY, "Preview"})
+    @StackTrace(false)
+    static class FrameUpload extends Event {
+        @Label("Camera")
+        public String camera;
+
+        @Label("Width")
+        public int width;
+
+        @Label("Height")
+        public int height;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+}
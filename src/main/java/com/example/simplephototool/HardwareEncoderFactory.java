@@ -1,10 +1,20 @@
 package com.example.simplephototool;
 
 import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Factory class for detecting and generating FFmpeg hardware encoder arguments.
@@ -61,48 +71,148 @@ public class HardwareEncoderFactory {
         }
     }
     
-    // Cache detected encoders to avoid repeated detection
-    private static List<EncoderType> availableEncoders = null;
-    private static boolean detectionComplete = false;
+    private static final String CACHE_FILE_NAME = "encoders.properties";
+    
+    /** Hardware encoders probed, in preference order. */
+    private static final List<EncoderType> HARDWARE_ENCODERS = List.of(
+        EncoderType.NVIDIA_NVENC, EncoderType.INTEL_QSV, EncoderType.AMD_AMF);
+    
+    // Detection runs once in the background; callers share the same result
+    private static CompletableFuture<List<EncoderType>> detection = null;
+    
+    /**
+     * Starts encoder detection in the background if it is not already running.
+     * Call at startup so the result is ready before the first preview needs it.
+     *
+     * @return Future completing with the available encoder types
+     */
+    public static synchronized CompletableFuture<List<EncoderType>> detectAsync() {
+        if (detection == null) {
+            detection = CompletableFuture.supplyAsync(HardwareEncoderFactory::runDetection, runnable -> {
+                Thread thread = new Thread(runnable, "HardwareEncoderFactory-detect");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        return detection;
+    }
     
     /**
      * Detects all available hardware encoders on the system.
-     * Results are cached after first detection.
+     * Results are cached in memory and on disk, keyed by the ffmpeg binary,
+     * so probing only happens again when ffmpeg changes.
      *
      * @return List of available encoder types (always includes SOFTWARE)
      */
-    public static synchronized List<EncoderType> detectAvailableEncoders() {
-        if (detectionComplete) {
-            return new ArrayList<>(availableEncoders);
+    public static List<EncoderType> detectAvailableEncoders() {
+        return new ArrayList<>(detectAsync().join());
+    }
+    
+    /**
+     * Loads cached results or probes all hardware encoders concurrently.
+     */
+    private static List<EncoderType> runDetection() {
+        String fingerprint = FFmpegDetector.getFingerprint();
+        List<EncoderType> cached = loadCachedEncoders(fingerprint);
+        if (cached != null) {
+            System.out.println("[HardwareEncoderFactory] Using cached encoder detection: " + cached);
+            return cached;
         }
         
-        availableEncoders = new ArrayList<>();
-        availableEncoders.add(EncoderType.SOFTWARE); // Always available
-        
         System.out.println("[HardwareEncoderFactory] Detecting available hardware encoders...");
+        long start = System.nanoTime();
         
-        // Check NVIDIA NVENC
-        if (isEncoderAvailable("h264_nvenc")) {
-            availableEncoders.add(EncoderType.NVIDIA_NVENC);
-            System.out.println("[HardwareEncoderFactory] NVIDIA NVENC detected");
-        }
+        List<EncoderType> available = new ArrayList<>();
+        available.add(EncoderType.SOFTWARE); // Always available
         
-        // Check Intel QuickSync
-        if (isEncoderAvailable("h264_qsv")) {
-            availableEncoders.add(EncoderType.INTEL_QSV);
-            System.out.println("[HardwareEncoderFactory] Intel QuickSync detected");
+        if (fingerprint != null) {
+            ExecutorService probes = Executors.newFixedThreadPool(HARDWARE_ENCODERS.size(), runnable -> {
+                Thread thread = new Thread(runnable, "HardwareEncoderFactory-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                // Encoders not compiled into this ffmpeg build can never work, so don't probe them
+                FFmpegCapabilities capabilities = FFmpegCapabilities.get();
+                List<EncoderType> candidates = HARDWARE_ENCODERS.stream()
+                    .filter(type -> capabilities.supportsEncoder(type.getFFmpegName()))
+                    .toList();
+                List<CompletableFuture<Boolean>> results = new ArrayList<>();
+                for (EncoderType type : candidates) {
+                    results.add(CompletableFuture.supplyAsync(() -> isEncoderAvailable(type.getFFmpegName()), probes));
+                }
+                for (int i = 0; i < candidates.size(); i++) {
+                    if (results.get(i).join()) {
+                        available.add(candidates.get(i));
+                        System.out.println("[HardwareEncoderFactory] " + candidates.get(i).getDisplayName() + " detected");
+                    }
+                }
+            } finally {
+                probes.shutdownNow();
+            }
+            saveCachedEncoders(fingerprint, available);
         }
         
-        // Check AMD AMF
-        if (isEncoderAvailable("h264_amf")) {
-            availableEncoders.add(EncoderType.AMD_AMF);
-            System.out.println("[HardwareEncoderFactory] AMD AMF detected");
+        System.out.println("[HardwareEncoderFactory] Detection complete in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms. Available: " + available);
+        return available;
+    }
+    
+    /**
+     * Reads the on-disk detection cache.
+     *
+     * @param fingerprint Fingerprint of the current ffmpeg binary
+     * @return Cached encoders, or null if there is no cache for this binary
+     */
+    private static List<EncoderType> loadCachedEncoders(String fingerprint) {
+        if (fingerprint == null) {
+            return null;
+        }
+        try {
+            Path cacheFile = SettingsManager.getCacheDirectory().resolve(CACHE_FILE_NAME);
+            if (!Files.exists(cacheFile)) {
+                return null;
+            }
+            Properties props = new Properties();
+            try (InputStream input = Files.newInputStream(cacheFile)) {
+                props.load(input);
+            }
+            if (!fingerprint.equals(props.getProperty("ffmpeg.fingerprint"))) {
+                return null;
+            }
+            List<EncoderType> encoders = new ArrayList<>();
+            encoders.add(EncoderType.SOFTWARE);
+            for (String name : props.getProperty("encoders", "").split(",")) {
+                EncoderType type = EncoderType.fromFFmpegName(name.trim());
+                if (!encoders.contains(type)) {
+                    encoders.add(type);
+                }
+            }
+            return encoders;
+        } catch (Exception e) {
+            System.err.println("[HardwareEncoderFactory] Ignoring unreadable encoder cache: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Writes detection results to the on-disk cache.
+     */
+    private static void saveCachedEncoders(String fingerprint, List<EncoderType> encoders) {
+        try {
+            Properties props = new Properties();
+            props.setProperty("ffmpeg.fingerprint", fingerprint);
+            props.setProperty("encoders", encoders.stream()
+                .filter(type -> type != EncoderType.SOFTWARE)
+                .map(EncoderType::getFFmpegName)
+                .collect(Collectors.joining(",")));
+            try (OutputStream output = Files.newOutputStream(
+                    SettingsManager.getCacheDirectory().resolve(CACHE_FILE_NAME))) {
+                props.store(output, "SimplePhotoTool hardware encoder detection");
+            }
+        } catch (Exception e) {
+            System.err.println("[HardwareEncoderFactory] Failed to write encoder cache: " + e.getMessage());
         }
-        
-        detectionComplete = true;
-        System.out.println("[HardwareEncoderFactory] Detection complete. Available: " + availableEncoders);
-        
-        return new ArrayList<>(availableEncoders);
     }
     
     /**
@@ -123,7 +233,8 @@ public class HardwareEncoderFactory {
             );
             pb.redirectErrorStream(true);
             
-            Process process = pb.start();
+            Process process = FFmpegProcesses.start(pb, null, "encoder-probe");
+            AtomicBoolean killed = FFmpegProcesses.killAfter(process, 5, TimeUnit.SECONDS);
             
             // Read output to prevent blocking
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
@@ -132,9 +243,8 @@ public class HardwareEncoderFactory {
                 }
             }
             
-            boolean completed = process.waitFor(5, TimeUnit.SECONDS);
-            if (!completed) {
-                process.destroyForcibly();
+            process.waitFor();
+            if (killed.get()) {
                 return false;
             }
             
@@ -251,10 +361,15 @@ public class HardwareEncoderFactory {
     
     /**
      * Resets the detection cache, forcing re-detection on next call.
+     * The on-disk cache is removed as well.
      */
     public static synchronized void resetDetectionCache() {
-        detectionComplete = false;
-        availableEncoders = null;
+        detection = null;
+        try {
+            Files.deleteIfExists(SettingsManager.getCacheDirectory().resolve(CACHE_FILE_NAME));
+        } catch (Exception e) {
+            System.err.println("[HardwareEncoderFactory] Failed to delete encoder cache: " + e.getMessage());
+        }
     }
     
     /**
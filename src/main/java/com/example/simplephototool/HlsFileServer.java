@@ -0,0 +1,200 @@
+package com.example.simplephototool;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Local HTTP server that serves one HLS directory to the JavaFX media player.
+ * One instance serves one stream run; a restarted stream gets a fresh server
+ * and therefore a fresh init segment cache.
+ */
+public class HlsFileServer {
+
+    /** Playlist served for requests to "/". */
+    public static final String PLAYLIST_NAME = "stream.m3u8";
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final String cameraName;
+    private final Path directory;
+    private final CameraMetrics metrics;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+    private volatile byte[] initSegment;
+
+    /**
+     * Creates a server for an HLS directory. Call {@link #start(int)} to listen.
+     *
+     * @param cameraName Camera name used in flight recorder events
+     * @param directory Directory ffmpeg writes the playlist and segments to
+     * @param metrics Metrics that receive served bytes and segment counts
+     */
+    public HlsFileServer(String cameraName, Path directory, CameraMetrics metrics) {
+        this.cameraName = cameraName;
+        this.directory = directory.toAbsolutePath().normalize();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts listening on the loopback interface.
+     *
+     * @param port The port to bind
+     * @throws IOException if the port cannot be bound
+     */
+    public void start(int port) throws IOException {
+        httpServer = createServer("127.0.0.1", port);
+        httpServer.createContext("/", this::handleRequest);
+        executor = IoThreads.newExecutor("HlsFileServer-" + cameraName);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        System.out.println("HTTP server started on port " + port);
+    }
+
+    /**
+     * Creates a JDK HTTP server with TCP_NODELAY enabled. With Nagle's algorithm on,
+     * small responses such as playlists wait for the client's delayed ACK, which
+     * capped playlist fetches at roughly 40 ms each in HlsServerBenchmark.
+     * The JDK reads the setting once, so every server in the app must be created here.
+     *
+     * @param host Address to bind
+     * @param port Port to bind
+     * @return The unstarted server
+     * @throws IOException if the address cannot be bound
+     */
+    static HttpServer createServer(String host, int port) throws IOException {
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        return HttpServer.create(new InetSocketAddress(host, port), 0);
+    }
+
+    /**
+     * Stops the server and its request threads.
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Serves a playlist, segment or fMP4 init segment from the HLS directory.
+     * The init segment never changes for the life of a stream, so it is read once,
+     * kept in memory and served with a long cache lifetime.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException if the response cannot be written
+     */
+    void handleRequest(HttpExchange exchange) throws IOException {
+        FlightEvents.HlsSegmentServed event = new FlightEvents.HlsSegmentServed();
+        event.begin();
+        long servedBytes = 0;
+        String requestPath = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        boolean head = "HEAD".equalsIgnoreCase(method);
+
+        if (requestPath.equals("/")) {
+            requestPath = "/" + PLAYLIST_NAME;
+        }
+
+        // Remove leading slash
+        String filename = requestPath.substring(1);
+        Path resolved = directory.resolve(filename).normalize();
+        // Never serve anything outside the HLS directory
+        File file = resolved.startsWith(directory) ? resolved.toFile() : null;
+
+        if (file != null && file.isFile()) {
+            exchange.getResponseHeaders().set("Content-Type", contentTypeFor(filename));
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+
+            if (filename.equals(HlsSegmentType.INIT_SEGMENT_NAME)) {
+                byte[] init = initSegment;
+                if (init == null) {
+                    init = Files.readAllBytes(file.toPath());
+                    initSegment = init;
+                }
+                exchange.getResponseHeaders().set("Cache-Control", "max-age=3600");
+                if (head) {
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, init.length);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(init);
+                    }
+                    servedBytes = init.length;
+                    metrics.recordHlsServed(init.length, false);
+                }
+            } else {
+                if (filename.endsWith(".m3u8")) {
+                    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                }
+                // Handle HEAD requests without body
+                if (head) {
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, file.length());
+                    long sent = 0;
+                    try (FileInputStream fis = new FileInputStream(file);
+                         OutputStream os = exchange.getResponseBody()) {
+                        byte[] buffer = new byte[8192];
+                        int bytesRead;
+                        while ((bytesRead = fis.read(buffer)) != -1) {
+                            os.write(buffer, 0, bytesRead);
+                            sent += bytesRead;
+                        }
+                    }
+                    servedBytes = sent;
+                    metrics.recordHlsServed(sent, !filename.endsWith(".m3u8"));
+                }
+            }
+        } else {
+            String response = "File not found: " + filename;
+            if (head) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(404, response.length());
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(response.getBytes());
+                }
+            }
+        }
+        exchange.close();
+
+        event.end();
+        if (servedBytes > 0 && event.shouldCommit()) {
+            event.camera = cameraName;
+            event.file = filename;
+            event.bytes = servedBytes;
+            event.commit();
+        }
+    }
+
+    /**
+     * Determines the HTTP content type for an HLS file.
+     */
+    private static String contentTypeFor(String filename) {
+        if (filename.endsWith(".m3u8")) {
+            return "application/vnd.apple.mpegurl";
+        } else if (filename.endsWith(".ts")) {
+            return "video/mp2t";
+        } else if (filename.endsWith(".m4s")) {
+            return "video/iso.segment";
+        } else if (filename.endsWith(".mp4")) {
+            return "video/mp4";
+        }
+        return "application/octet-stream";
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.simplephototool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Container format used for HLS preview segments.
+ * MPEG-TS is the default and the fallback; fragmented MP4 avoids the 188-byte
+ * packet and PES header overhead but depends on the JavaFX media stack accepting it.
+ */
+public enum HlsSegmentType {
+    MPEG_TS("mpegts", "segment_%03d.ts", "MPEG-TS"),
+    FMP4("fmp4", "segment_%03d.m4s", "Fragmented MP4");
+
+    /** File name of the fMP4 initialization segment, relative to the playlist. */
+    public static final String INIT_SEGMENT_NAME = "init.mp4";
+
+    private static volatile boolean fmp4Rejected = false;
+
+    private final String ffmpegName;
+    private final String segmentPattern;
+    private final String displayName;
+
+    HlsSegmentType(String ffmpegName, String segmentPattern, String displayName) {
+        this.ffmpegName = ffmpegName;
+        this.segmentPattern = segmentPattern;
+        this.displayName = displayName;
+    }
+
+    public String getFFmpegName() {
+        return ffmpegName;
+    }
+
+    public String getSegmentPattern() {
+        return segmentPattern;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    /**
+     * Builds the HLS muxer arguments that select this segment type.
+     *
+     * @param hlsPath Directory the segments are written to
+     * @param separator Path separator used by the platform strategy
+     * @return FFmpeg arguments for segment type and filenames
+     */
+    public List<String> getMuxerArguments(String hlsPath, String separator) {
+        List<String> args = new ArrayList<>();
+        if (this == FMP4) {
+            args.add("-hls_segment_type");
+            args.add(ffmpegName);
+            args.add("-hls_fmp4_init_filename");
+            args.add(INIT_SEGMENT_NAME);
+        }
+        args.add("-hls_segment_filename");
+        args.add(hlsPath + separator + segmentPattern);
+        return args;
+    }
+
+    /**
+     * Resolves the segment type to actually use, falling back to TS when the
+     * ffmpeg build cannot write fMP4 or the media stack has rejected it.
+     *
+     * @param requested The configured segment type
+     * @return The segment type to stream with
+     */
+    public static HlsSegmentType resolve(HlsSegmentType requested) {
+        if (requested == FMP4 && (fmp4Rejected || !FFmpegCapabilities.get().supportsHlsOption("hls_segment_type"))) {
+            return MPEG_TS;
+        }
+        return requested != null ? requested : MPEG_TS;
+    }
+
+    /**
+     * Records that the media stack could not play fMP4 segments.
+     * Later streams fall back to MPEG-TS for the rest of the session.
+     */
+    public static void markFmp4Rejected() {
+        if (!fmp4Rejected) {
+            fmp4Rejected = true;
+            System.out.println("[HlsSegmentType] fMP4 segments rejected by media player, falling back to MPEG-TS");
+        }
+    }
+
+    public static HlsSegmentType fromFFmpegName(String name) {
+        for (HlsSegmentType type : values()) {
+            if (type.ffmpegName.equals(name)) {
+                return type;
+            }
+        }
+        return MPEG_TS;
+    }
+}
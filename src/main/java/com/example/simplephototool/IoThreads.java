@@ -0,0 +1,80 @@
+package com.example.simplephototool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the threads that do blocking I/O: ffmpeg output readers, HLS request
+ * handlers and one-off background work started from the UI.
+ * <p>
+ * They are daemon platform threads by default. Start the app with
+ * {@code -D}{@value #VIRTUAL_PROPERTY}{@code =true} to use virtual threads instead,
+ * e.g. to compare the two with the soak test or {@code IoThreadsBenchmark}.
+ * <p>
+ * Virtual threads are not the default because they have not paid off here: on
+ * JDK 21 a read from a process pipe still occupies a carrier thread (the JDK adds
+ * carriers to compensate), so ffmpeg output readers save no platform threads, and
+ * with 32 cameras the benchmark measured higher mean and p99 delivery latency.
+ * Pools that exist to limit concurrency, such as {@link SessionStarter}'s, and
+ * schedulers stay on platform threads.
+ */
+public class IoThreads {
+
+    public static final String VIRTUAL_PROPERTY = "spt.threads.virtual";
+
+    private static final boolean VIRTUAL = Boolean.parseBoolean(System.getProperty(VIRTUAL_PROPERTY, "false"));
+
+    /**
+     * Tells whether I/O threads are virtual threads.
+     *
+     * @return true for virtual threads, false for platform threads
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    /**
+     * Starts a thread for a blocking task.
+     *
+     * @param name Thread name, shown in thread dumps and flight recordings
+     * @param task The task
+     * @return The started thread
+     */
+    public static Thread start(String name, Runnable task) {
+        return start(name, task, VIRTUAL);
+    }
+
+    static Thread start(String name, Runnable task, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name).start(task);
+        }
+        return Thread.ofPlatform().name(name).daemon().start(task);
+    }
+
+    /**
+     * Creates an executor that runs each task on a new thread, for request handlers
+     * that spend their time blocked on sockets and files.
+     *
+     * @param name Prefix of the thread names
+     * @return The executor; shut it down when done
+     */
+    public static ExecutorService newExecutor(String name) {
+        return newExecutor(name, VIRTUAL);
+    }
+
+    static ExecutorService newExecutor(String name, boolean virtual) {
+        if (virtual) {
+            return Executors.newThreadPerTaskExecutor(factory(name, true));
+        }
+        // Platform threads are reused between tasks, as the cached pool did before
+        return Executors.newCachedThreadPool(factory(name, false));
+    }
+
+    private static ThreadFactory factory(String name, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name + "-", 1).factory();
+        }
+        return Thread.ofPlatform().name(name + "-", 1).daemon().factory();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.simplephototool;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the application's MXBeans with the platform MBean server so they can
+ * be watched with JConsole, VisualVM or a JMX exporter.
+ * All names live under the {@value #DOMAIN} domain. Failures are logged and
+ * never affect the instrumented component.
+ */
+public class JmxRegistry {
+
+    public static final String DOMAIN = "com.example.simplephototool";
+
+    /**
+     * Registers an MXBean, replacing any bean already registered under the same name.
+     *
+     * @param type Value of the {@code type} key, e.g. "CameraSession"
+     * @param name Value of the {@code name} key, or null for singletons
+     * @param bean The MXBean implementation
+     */
+    public static void register(String type, String name, Object bean) {
+        try {
+            ObjectName objectName = objectName(type, name);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(bean, objectName);
+        } catch (Exception e) {
+            System.err.println("[JmxRegistry] Failed to register " + type + " " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unregisters an MXBean if it is registered.
+     *
+     * @param type Value of the {@code type} key
+     * @param name Value of the {@code name} key, or null for singletons
+     */
+    public static void unregister(String type, String name) {
+        try {
+            ObjectName objectName = objectName(type, name);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            System.err.println("[JmxRegistry] Failed to unregister " + type + " " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) throws Exception {
+        String value = DOMAIN + ":type=" + type;
+        if (name != null) {
+            // Device IDs contain characters such as '/' and ':' that must be quoted
+            value += ",name=" + ObjectName.quote(name);
+        }
+        return new ObjectName(value);
+    }
+}
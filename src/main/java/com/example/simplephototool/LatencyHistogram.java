@@ -0,0 +1,87 @@
+package com.example.simplephototool;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram in milliseconds.
+ * Recording is a bucket search plus two {@link LongAdder} increments, so hot
+ * paths never contend on a lock. Bucket counts are stored non-cumulatively and
+ * summed when exported.
+ */
+public class LatencyHistogram {
+
+    /** Upper bounds in milliseconds, chosen around typical snapshot and startup times. */
+    private static final long[] DEFAULT_BOUNDS_MS = {50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Creates a histogram with the default millisecond buckets.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_BOUNDS_MS);
+    }
+
+    /**
+     * Creates a histogram with custom bucket upper bounds.
+     *
+     * @param boundsMillis Ascending upper bounds in milliseconds
+     */
+    public LatencyHistogram(long[] boundsMillis) {
+        this.bounds = boundsMillis.clone();
+        this.buckets = new LongAdder[bounds.length + 1]; // Last bucket is +Inf
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one observation.
+     *
+     * @param millis Observed latency in milliseconds
+     */
+    public void record(long millis) {
+        int i = 0;
+        while (i < bounds.length && millis > bounds[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sum.add(millis);
+    }
+
+    /**
+     * Gets the total number of observations.
+     *
+     * @return Observation count
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Appends the histogram in Prometheus text format, converted to seconds.
+     *
+     * @param out Buffer to append to
+     * @param name Metric name without the _bucket/_sum/_count suffix
+     * @param labels Rendered label pairs without braces, or an empty string
+     */
+    public void writePrometheus(StringBuilder out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String le = i < bounds.length ? Double.toString(bounds[i] / 1000.0) : "+Inf";
+            out.append(name).append("_bucket{").append(prefix).append("le=\"").append(le).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(sum.sum() / 1000.0).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+}
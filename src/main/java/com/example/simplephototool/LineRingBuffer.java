@@ -0,0 +1,60 @@
+package com.example.simplephototool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-capacity buffer that keeps the most recent lines of process output.
+ * Older lines are overwritten, so memory stays constant for long-running streams.
+ */
+public class LineRingBuffer {
+
+    private final String[] lines;
+    private long totalLines = 0;
+
+    /**
+     * Creates a ring buffer holding at most {@code capacity} lines.
+     *
+     * @param capacity Maximum number of lines retained
+     */
+    public LineRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.lines = new String[capacity];
+    }
+
+    /**
+     * Appends a line, overwriting the oldest one when full.
+     *
+     * @param line The line to add
+     */
+    public synchronized void add(String line) {
+        lines[(int) (totalLines % lines.length)] = line;
+        totalLines++;
+    }
+
+    /**
+     * Gets the retained lines, oldest first.
+     *
+     * @return Copy of the retained lines
+     */
+    public synchronized List<String> snapshot() {
+        int size = (int) Math.min(totalLines, lines.length);
+        List<String> result = new ArrayList<>(size);
+        long first = totalLines - size;
+        for (long i = first; i < totalLines; i++) {
+            result.add(lines[(int) (i % lines.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of lines ever added, including overwritten ones.
+     *
+     * @return Total line count
+     */
+    public synchronized long getTotalLines() {
+        return totalLines;
+    }
+}
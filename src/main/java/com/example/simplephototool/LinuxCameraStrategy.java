@@ -1,17 +1,29 @@
 package com.example.simplephototool;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Linux-specific camera strategy using FFmpeg Video4Linux2.
  * All operations use FFmpeg for device detection, preview, and snapshot.
+ * Devices are opened at the native frame size closest to the requested resolution,
+ * as probed by {@link V4l2Capabilities}, and scaled only where an exact size is needed.
+ * <p>
+ * Capture modes are planned by {@link UsbBandwidthPlanner} so the cameras on a USB
+ * bus fit its bandwidth: uncompressed while it fits, otherwise MJPEG or H.264, and
+ * previews at reduced size or rate when even that does not fit.
+ * {@value #INPUT_FORMAT_PROPERTY} forces raw, mjpeg or h264 instead of auto.
+ * <p>
+ * JPEG snapshots from cameras that offer MJPEG at the requested size are written
+ * straight from the device's frame, without decoding or re-encoding it.
  */
 public class LinuxCameraStrategy implements CameraStrategy {
     
+    public static final String INPUT_FORMAT_PROPERTY = "spt.v4l2.inputFormat";
+    
+    private static final String INPUT_FORMAT = System.getProperty(INPUT_FORMAT_PROPERTY, "auto");
+    
     private static final List<String> ffmpegV4l2 = List.of("ffmpeg",
             "-hide_banner",
             "-f", "v4l2");
@@ -27,7 +39,13 @@ public class LinuxCameraStrategy implements CameraStrategy {
         if (videoDevices != null) {
             for (File device : videoDevices) {
                 String devicePath = device.getAbsolutePath();
-                String deviceName = "Camera " + device.getName();
+                V4l2Capabilities capabilities = V4l2Capabilities.forDevice(devicePath);
+                if (!capabilities.isCapture()) {
+                    continue; // Metadata or output node, e.g. the second node of a UVC camera
+                }
+                String deviceName = capabilities.getName() != null
+                        ? capabilities.getName() + " (" + device.getName() + ")"
+                        : "Camera " + device.getName();
                 devices.add(new CameraDevice(devicePath, deviceName));
             }
         }
@@ -44,65 +62,121 @@ public class LinuxCameraStrategy implements CameraStrategy {
         int[] dimensions = getResolution(camera, settings);
         int width = (dimensions != null) ? dimensions[0] : 640;
         int height = (dimensions != null) ? dimensions[1] : 480;
+        V4l2Capabilities.InputMode mode = inputMode(camera, width, height, PREVIEW_FPS, UsbBandwidthPlanner.Use.PREVIEW, "preview");
 
         // Build command using common prefix
         List<String> command = new ArrayList<>(ffmpegV4l2);
-        command.add("-video_size");
-        command.add(width + "x" + height);
+        command.addAll(mode.arguments(mode.format() != null));
         command.add("-i");
         command.add(deviceId);
-        command.add("-f");
-        command.add("rawvideo");
-        command.add("-pix_fmt");
-        command.add("rgb24");
-        command.add("-");
+        // The preview tile expects frames at the requested size, at the rate the plan allows
+        if (mode.width() == width && mode.height() == height) {
+            command.addAll(getRawPreviewOutputArguments(mode.fps()));
+        } else {
+            command.addAll(getRawPreviewOutputArguments(width, height, mode.fps()));
+        }
+        // stdout carries the frames, so progress goes to stderr
+        FFmpegProgress.addArguments(command, 2);
 
         return new ProcessBuilder(command);
     }
 
     @Override
-    public boolean captureSnapshot(Camera camera, Settings settings) {
+    public ProcessBuilder buildSnapshotCommand(Camera camera, Settings settings, String outputPath) {
         // Use ffmpeg v4l2 for snapshot capture on Linux
-        String outputPath = settings.getSnapshotOutputDirectory() + "/" + generateFilename(camera, settings.getFilenamePattern());
         String deviceId = camera.getDeviceId();
         
-        // Get resolution from camera/settings - scale on output since virtual cameras
-        // may not support arbitrary input resolutions
+        // Get resolution from camera/settings
         int[] dimensions = getResolution(camera, settings);
         int width = (dimensions != null) ? dimensions[0] : 640;
         int height = (dimensions != null) ? dimensions[1] : 480;
 
         List<String> command = new ArrayList<>(ffmpegV4l2);
+        V4l2Capabilities capabilities = V4l2Capabilities.forDevice(deviceId);
+        boolean scale = true;
+        boolean passthrough = false;
+        if (capabilities.isKnown()) {
+            // A camera's MJPEG frame at the requested size already is the JPEG we want
+            boolean jpegOutput = outputPath.toLowerCase().endsWith(".jpg") || outputPath.toLowerCase().endsWith(".jpeg");
+            String preferred = jpegOutput && ("auto".equals(INPUT_FORMAT) || "mjpeg".equals(INPUT_FORMAT))
+                    && capabilities.offers("mjpeg", width, height) ? "mjpeg" : INPUT_FORMAT;
+            // Open the device at its closest native mode, scaling only if that is not the request
+            V4l2Capabilities.InputMode mode = inputMode(camera, width, height, PREVIEW_FPS,
+                    UsbBandwidthPlanner.Use.CAPTURE, "snapshot", preferred);
+            // Request the planned rate; left to itself the device may open at 30 fps
+            command.addAll(mode.arguments(true));
+            scale = mode.width() != width || mode.height() != height;
+            passthrough = jpegOutput && !scale && "mjpeg".equals(mode.format());
+        }
+        // Unprobed devices open at their default size, since virtual cameras
+        // may not support arbitrary input resolutions, and are scaled on output
         command.add("-i");
         command.add(deviceId);
-        command.add("-vf");
-        command.add("scale=" + width + ":" + height);
+        if (passthrough) {
+            // Copy the frame; UVC cameras omit the Huffman tables, which mjpeg2jpeg adds back
+            command.add("-c:v");
+            command.add("copy");
+            command.add("-bsf:v");
+            command.add("mjpeg2jpeg");
+        } else if (scale) {
+            command.add("-vf");
+            command.add("scale=" + width + ":" + height);
+        }
         command.add("-frames:v");
         command.add("1");
         command.add("-y"); // Overwrite output file
         command.add(outputPath);
 
-        ProcessBuilder pb = new ProcessBuilder(command);
+        // Progress on stderr feeds the snapshot metrics
+        FFmpegProgress.addArguments(command, 2);
 
-        try {
-            Process process = pb.start();
-            // Capture output for debugging
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            String line;
-            while (settings.getVerboseOutput() && (line = reader.readLine()) != null) {
-                System.out.println(line);
-            }
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                System.err.println("FFmpeg failed to capture snapshot from " + camera.getName() + " with exit code " + exitCode);
-                return false;
-            }
-            System.out.println("Snapshot saved: " + outputPath);
-            return true;
-        } catch (Exception e) {
-            System.err.println("Error capturing snapshot from " + camera.getName() + ": " + e.getMessage());
-            return false;
+        return new ProcessBuilder(command);
+    }
+    
+    @Override
+    public ProcessBuilder buildRecordCommand(Camera camera, Settings settings, String outputPath, int seconds) {
+        // Record straight from v4l2
+        int[] dimensions = getResolution(camera, settings);
+        int width = (dimensions != null) ? dimensions[0] : 640;
+        int height = (dimensions != null) ? dimensions[1] : 480;
+
+        V4l2Capabilities.InputMode mode = inputMode(camera, width, height, PREVIEW_FPS, UsbBandwidthPlanner.Use.CAPTURE, "record");
+
+        List<String> command = new ArrayList<>(ffmpegV4l2);
+        command.addAll(mode.arguments(mode.format() != null));
+        command.add("-i");
+        command.add(camera.getDeviceId());
+        command.add("-t");
+        command.add(String.valueOf(seconds));
+        command.add("-c:v");
+        command.add("copy"); // Keep the device's own format for realistic replay
+        command.add("-y");
+        command.add(outputPath);
+
+        return new ProcessBuilder(command);
+    }
+    
+    /**
+     * Plans the format, native size and rate to open a camera in against its share
+     * of its USB bus, and reports the choice and its estimated bandwidth. Devices
+     * that could not be probed get the requested size in their default format.
+     */
+    private static V4l2Capabilities.InputMode inputMode(Camera camera, int width, int height, int fps,
+                                                        UsbBandwidthPlanner.Use use, String purpose) {
+        return inputMode(camera, width, height, fps, use, purpose, INPUT_FORMAT);
+    }
+
+    private static V4l2Capabilities.InputMode inputMode(Camera camera, int width, int height, int fps,
+                                                        UsbBandwidthPlanner.Use use, String purpose, String preferred) {
+        V4l2Capabilities capabilities = V4l2Capabilities.forDevice(camera.getDeviceId());
+        UsbBandwidthPlanner.Plan plan = UsbBandwidthPlanner.getInstance().plan(camera.getDeviceId(), capabilities,
+                width, height, fps, use, preferred);
+        V4l2Capabilities.InputMode mode = plan.mode();
+        if (mode.format() != null) {
+            System.out.println("[LinuxCameraStrategy] " + camera.getName() + " " + purpose + ": " + plan.describe());
         }
+        CameraMetrics.forCamera(camera).setInputMode(plan.describe(), mode.bytesPerSecond());
+        return mode;
     }
     
     @Override
@@ -111,13 +185,16 @@ public class LinuxCameraStrategy implements CameraStrategy {
     }
 
     @Override
-    public ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath) {
+    public ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath,
+                                                       HlsSegmentType segmentType) {
         String deviceId = camera.getDeviceId();
 
         // Get resolution from camera/settings
         int[] dimensions = getResolution(camera, settings);
         int width = (dimensions != null) ? dimensions[0] : 640;
         int height = (dimensions != null) ? dimensions[1] : 480;
+        // Stream at the native size; the media view scales it for display anyway
+        V4l2Capabilities.InputMode mode = inputMode(camera, width, height, 15, UsbBandwidthPlanner.Use.PREVIEW, "stream");
 
         // Build FFmpeg command to stream using HLS (HTTP Live Streaming)
         // JavaFX requires HLS with BOTH H.264 video AND AAC audio tracks
@@ -128,17 +205,11 @@ public class LinuxCameraStrategy implements CameraStrategy {
         // Video input from camera
         command.add("-f");
         command.add("v4l2");
-        command.add("-video_size");
-        command.add(width + "x" + height);
-        command.add("-framerate");
-        command.add("15");
+        command.addAll(mode.arguments(true));
         command.add("-i");
         command.add(deviceId);
-        // Silent audio input (required by JavaFX HLS)
-        command.add("-f");
-        command.add("lavfi");
-        command.add("-i");
-        command.add("anullsrc=r=44100:cl=mono");
+        // Silent audio input (required by JavaFX HLS), pre-encoded and looped
+        command.addAll(SilentAudioTrack.getInputArguments());
         
         // Get encoder arguments from factory based on settings
         HardwareEncoderFactory.EncoderType encoderType = settings.getEncoderType();
@@ -149,11 +220,8 @@ public class LinuxCameraStrategy implements CameraStrategy {
         // GOP size for low latency
         command.add("-g");
         command.add("15");
-        // Audio encoding - AAC (required by JavaFX HLS)
-        command.add("-c:a");
-        command.add("aac");
-        command.add("-b:a");
-        command.add("64k");
+        // Audio - AAC (required by JavaFX HLS), copied from the cached track when available
+        command.addAll(SilentAudioTrack.getCodecArguments(segmentType));
         // Use shortest input to stop when video ends
         command.add("-shortest");
         // HLS output settings
@@ -163,12 +231,17 @@ public class LinuxCameraStrategy implements CameraStrategy {
         command.add("1");
         command.add("-hls_list_size");
         command.add("3");
-        command.add("-hls_flags");
-        command.add("delete_segments+append_list");
-        command.add("-hls_segment_filename");
-        command.add(hlsPath + "/segment_%03d.ts");
+        String hlsFlags = FFmpegCapabilities.get().hlsFlags("delete_segments", "append_list");
+        if (!hlsFlags.isEmpty()) {
+            command.add("-hls_flags");
+            command.add(hlsFlags);
+        }
+        command.addAll(segmentType.getMuxerArguments(hlsPath, "/"));
         command.add(hlsPath + "/stream.m3u8");
 
+        // Progress reports on stdout, which HLS output leaves free
+        FFmpegProgress.addArguments(command, 1);
+
         return new ProcessBuilder(command);
     }
 }
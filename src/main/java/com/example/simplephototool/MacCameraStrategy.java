@@ -29,7 +29,7 @@ public class MacCameraStrategy implements CameraStrategy {
 
             ProcessBuilder pb = new ProcessBuilder(command);
             pb.redirectErrorStream(true);
-            Process process = pb.start();
+            Process process = FFmpegProcesses.start(pb, null, "device-list");
 
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String line;
@@ -89,19 +89,16 @@ public class MacCameraStrategy implements CameraStrategy {
         command.add(width + "x" + height);
         command.add("-i");
         command.add(deviceId);
-        command.add("-f");
-        command.add("rawvideo");
-        command.add("-pix_fmt");
-        command.add("rgb24");
-        command.add("-");
+        command.addAll(getRawPreviewOutputArguments());
+        // stdout carries the frames, so progress goes to stderr
+        FFmpegProgress.addArguments(command, 2);
 
         return new ProcessBuilder(command);
     }
 
     @Override
-    public boolean captureSnapshot(Camera camera, Settings settings) {
+    public ProcessBuilder buildSnapshotCommand(Camera camera, Settings settings, String outputPath) {
         // Use ffmpeg avfoundation for snapshot capture on macOS
-        String outputPath = settings.getSnapshotOutputDirectory() + "/" + generateFilename(camera, settings.getFilenamePattern());
         String deviceId = camera.getDeviceId();
         
         // Get resolution from camera/settings - scale on output since virtual cameras
@@ -120,27 +117,32 @@ public class MacCameraStrategy implements CameraStrategy {
         command.add("-y"); // Overwrite output file
         command.add(outputPath);
 
-        ProcessBuilder pb = new ProcessBuilder(command);
+        // Progress on stderr feeds the snapshot metrics
+        FFmpegProgress.addArguments(command, 2);
 
-        try {
-            Process process = pb.start();
-            // Capture output for debugging
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            String line;
-            while (settings.getVerboseOutput() && (line = reader.readLine()) != null) {
-                System.out.println(line);
-            }
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                System.err.println("FFmpeg failed to capture snapshot from " + camera.getName() + " with exit code " + exitCode);
-                return false;
-            }
-            System.out.println("Snapshot saved: " + outputPath);
-            return true;
-        } catch (Exception e) {
-            System.err.println("Error capturing snapshot from " + camera.getName() + ": " + e.getMessage());
-            return false;
-        }
+        return new ProcessBuilder(command);
+    }
+    
+    @Override
+    public ProcessBuilder buildRecordCommand(Camera camera, Settings settings, String outputPath, int seconds) {
+        // Record straight from AVFoundation
+        int[] dimensions = getResolution(camera, settings);
+        int width = (dimensions != null) ? dimensions[0] : 640;
+        int height = (dimensions != null) ? dimensions[1] : 480;
+
+        List<String> command = new ArrayList<>(ffmpegAvfoundation);
+        command.add("-video_size");
+        command.add(width + "x" + height);
+        command.add("-i");
+        command.add(camera.getDeviceId());
+        command.add("-t");
+        command.add(String.valueOf(seconds));
+        command.add("-c:v");
+        command.add("copy"); // Keep the device's own format for realistic replay
+        command.add("-y");
+        command.add(outputPath);
+
+        return new ProcessBuilder(command);
     }
     
     @Override
@@ -149,7 +151,8 @@ public class MacCameraStrategy implements CameraStrategy {
     }
 
     @Override
-    public ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath) {
+    public ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath,
+                                                       HlsSegmentType segmentType) {
         String deviceId = camera.getDeviceId();
 
         // Get resolution from camera/settings
@@ -172,11 +175,8 @@ public class MacCameraStrategy implements CameraStrategy {
         command.add("15");
         command.add("-i");
         command.add(deviceId);
-        // Silent audio input (required by JavaFX HLS)
-        command.add("-f");
-        command.add("lavfi");
-        command.add("-i");
-        command.add("anullsrc=r=44100:cl=mono");
+        // Silent audio input (required by JavaFX HLS), pre-encoded and looped
+        command.addAll(SilentAudioTrack.getInputArguments());
         
         // Get encoder arguments from factory based on settings
         // Note: macOS typically uses VideoToolbox (h264_videotoolbox) but we use the factory
@@ -188,11 +188,8 @@ public class MacCameraStrategy implements CameraStrategy {
         // GOP size for low latency
         command.add("-g");
         command.add("15");
-        // Audio encoding - AAC (required by JavaFX HLS)
-        command.add("-c:a");
-        command.add("aac");
-        command.add("-b:a");
-        command.add("64k");
+        // Audio - AAC (required by JavaFX HLS), copied from the cached track when available
+        command.addAll(SilentAudioTrack.getCodecArguments(segmentType));
         // Use shortest input to stop when video ends
         command.add("-shortest");
         // HLS output settings
@@ -202,12 +199,17 @@ public class MacCameraStrategy implements CameraStrategy {
         command.add("1");
         command.add("-hls_list_size");
         command.add("3");
-        command.add("-hls_flags");
-        command.add("delete_segments+append_list");
-        command.add("-hls_segment_filename");
-        command.add(hlsPath + "/segment_%03d.ts");
+        String hlsFlags = FFmpegCapabilities.get().hlsFlags("delete_segments", "append_list");
+        if (!hlsFlags.isEmpty()) {
+            command.add("-hls_flags");
+            command.add(hlsFlags);
+        }
+        command.addAll(segmentType.getMuxerArguments(hlsPath, "/"));
         command.add(hlsPath + "/stream.m3u8");
 
+        // Progress reports on stdout, which HLS output leaves free
+        FFmpegProgress.addArguments(command, 1);
+
         return new ProcessBuilder(command);
     }
 }
@@ -1,7 +1,6 @@
 package com.example.simplephototool;
 
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -11,14 +10,12 @@ import javafx.scene.control.ListView;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
-import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.Priority;
-import javafx.scene.layout.RowConstraints;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 public class MainController {
@@ -36,6 +33,7 @@ public class MainController {
 
     private ObservableList<Camera> cameras = FXCollections.observableArrayList();
     private PreviewManager previewManager;
+    private PreviewGrid grid;
     private Settings settings;
 
     @FXML
@@ -55,26 +53,26 @@ public class MainController {
         // Initialize preview manager with camera list
         previewManager = new PreviewManager(cameras, settings);
         
-        // Populate the grid with preview items for cameras with preview enabled
-        rebuildPreviewGrid();
-
-        // Listen for camera list changes to update grid
-        cameras.addListener((ListChangeListener<Camera>) change -> {
-            while (change.next()) {
-                if (change.wasAdded() || change.wasRemoved()) {
-                    previewManager.refresh();
-                    rebuildPreviewGrid();
-                }
+        // Populate the grid with preview items for cameras with preview enabled,
+        // then keep it in step with the manager one item at a time
+        grid = new PreviewGrid(previewGrid);
+        grid.setAll(previewManager.getOrderedPreviewItems());
+        previewManager.setListener(new PreviewManager.Listener() {
+            @Override
+            public void previewAdded(CameraPreviewItem item, int position) {
+                grid.insert(position, item);
+            }
+            
+            @Override
+            public void previewRemoved(CameraPreviewItem item) {
+                grid.remove(item);
+            }
+            
+            @Override
+            public void previewsReordered(List<CameraPreviewItem> items) {
+                grid.setAll(items);
             }
         });
-        
-        // Listen for previewEnabled property changes on each camera
-        for (Camera camera : cameras) {
-            camera.previewEnabledProperty().addListener((obs, wasEnabled, isEnabled) -> {
-                previewManager.refresh();
-                rebuildPreviewGrid();
-            });
-        }
     }
     
     /**
@@ -97,88 +95,6 @@ public class MainController {
         });
     }
 
-    /**
-     * Rebuilds the preview grid with CameraPreviewItems for cameras with preview enabled.
-     * Dynamically calculates columns and rows based on the number of enabled previews.
-     */
-    private void rebuildPreviewGrid() {
-        previewGrid.getChildren().clear();
-        previewGrid.getColumnConstraints().clear();
-        previewGrid.getRowConstraints().clear();
-        
-        // Count cameras with preview enabled
-        int enabledCount = 0;
-        for (Camera camera : cameras) {
-            if (camera.isPreviewEnabled()) {
-                enabledCount++;
-            }
-        }
-        
-        if (enabledCount == 0) {
-            return;
-        }
-        
-        // Calculate optimal grid layout
-        int cols = calculateOptimalColumns(enabledCount);
-        int rows = (int) Math.ceil((double) enabledCount / cols);
-        
-        // Create column constraints
-        for (int i = 0; i < cols; i++) {
-            ColumnConstraints colConstraint = new ColumnConstraints();
-            colConstraint.setHgrow(Priority.SOMETIMES);
-            colConstraint.setMinWidth(10);
-            colConstraint.setPercentWidth(100.0 / cols);
-            previewGrid.getColumnConstraints().add(colConstraint);
-        }
-        
-        // Create row constraints
-        for (int i = 0; i < rows; i++) {
-            RowConstraints rowConstraint = new RowConstraints();
-            rowConstraint.setVgrow(Priority.SOMETIMES);
-            rowConstraint.setMinHeight(10);
-            previewGrid.getRowConstraints().add(rowConstraint);
-        }
-        
-        // Add preview items to the grid
-        int col = 0;
-        int row = 0;
-        
-        for (Camera camera : cameras) {
-            if (!camera.isPreviewEnabled()) {
-                continue;
-            }
-            
-            CameraPreviewItem item = previewManager.getPreviewItem(camera.getDeviceId());
-            if (item != null && !previewGrid.getChildren().contains(item)) {
-                GridPane.setColumnIndex(item, col);
-                GridPane.setRowIndex(item, row);
-                previewGrid.getChildren().add(item);
-                
-                col++;
-                if (col >= cols) {
-                    col = 0;
-                    row++;
-                }
-            }
-        }
-    }
-    
-    /**
-     * Calculates the optimal number of columns based on the number of items.
-     * Uses a simple heuristic: 1 item = 1 col, 2-4 items = 2 cols, 5+ items = 3 cols.
-     */
-    private int calculateOptimalColumns(int itemCount) {
-        if (itemCount <= 1) {
-            return 1;
-        } else if (itemCount <= 4) {
-            return 2;
-        } else if (itemCount <= 9) {
-            return 3;
-        } else {
-            return 4;
-        }
-    }
-
     @FXML
     private void onAddCamera() {
         try {
@@ -198,11 +114,6 @@ public class MainController {
             Camera newCamera = controller.getResult();
             
             if (newCamera != null) {
-                // Add listener for previewEnabled property changes
-                newCamera.previewEnabledProperty().addListener((obs, wasEnabled, isEnabled) -> {
-                    previewManager.refresh();
-                    rebuildPreviewGrid();
-                });
                 cameras.add(newCamera);
                 saveCameras();
             }
@@ -287,9 +198,8 @@ public class MainController {
             if (controller.isSaveClicked()) {
                 // Refresh the list view to show updated name
                 cameraList.refresh();
-                // Refresh preview tiles
+                // Recreate the preview if the device changed
                 previewManager.refresh();
-                rebuildPreviewGrid();
                 saveCameras();
             }
         } catch (IOException e) {
@@ -303,7 +213,7 @@ public class MainController {
         // Preview is started by clicking on the tile, not by the checkbox
         System.out.println("[MainController] Preview checkbox toggled for: " + camera.getName() + 
             " - previewEnabled=" + camera.isPreviewEnabled());
-        // Grid is automatically rebuilt by the property listener in initialize()
+        // Grid is updated by PreviewManager's previewEnabled listener
     }
 
     @FXML
@@ -322,7 +232,7 @@ public class MainController {
         previewManager.stopAllPreviews();
         
         // Run snapshot capture in background thread
-        new Thread(() -> {
+        IoThreads.start("MainController-snapshot", () -> {
             // Give the devices time to release
             if (!runningDevices.isEmpty()) {
                 try {
@@ -350,7 +260,7 @@ public class MainController {
                     }
                 });
             }
-        }).start();
+        });
     }
     
     /**
@@ -362,7 +272,7 @@ public class MainController {
         previewManager.stopAllPreviews();
         
         // Run snapshot capture in background thread
-        new Thread(() -> {
+        IoThreads.start("MainController-snapshot", () -> {
             // Give the devices time to release
             try {
                 Thread.sleep(300);
@@ -386,7 +296,7 @@ public class MainController {
                 previewManager.startAllPreviews();
                 System.out.println("Started all previews after snapshot.");
             });
-        }).start();
+        });
     }
 
     public void stopPreview() {
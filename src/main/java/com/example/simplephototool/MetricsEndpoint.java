@@ -0,0 +1,199 @@
+package com.example.simplephototool;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Optional {@code /metrics} endpoint in Prometheus text exposition format.
+ * Disabled unless the {@value #PORT_PROPERTY} system property is set, e.g.
+ * {@code -Dspt.metrics.port=9464}. Binds to 127.0.0.1 unless
+ * {@value #HOST_PROPERTY} says otherwise.
+ * <p>
+ * Values are read from the lock-free counters in {@link CameraMetrics},
+ * {@link SnapshotService} and {@link FFmpegLogWriter} at scrape time, so the
+ * endpoint adds no cost to the paths that update them.
+ */
+public class MetricsEndpoint {
+
+    public static final String PORT_PROPERTY = "spt.metrics.port";
+    public static final String HOST_PROPERTY = "spt.metrics.host";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static HttpServer server;
+
+    /**
+     * Starts the endpoint if {@value #PORT_PROPERTY} is set. Safe to call more than once.
+     */
+    public static synchronized void startIfConfigured() {
+        String portValue = System.getProperty(PORT_PROPERTY);
+        if (portValue == null || portValue.isBlank() || server != null) {
+            return;
+        }
+        String host = System.getProperty(HOST_PROPERTY, "127.0.0.1");
+        try {
+            int port = Integer.parseInt(portValue.trim());
+            server = HlsFileServer.createServer(host, port);
+            server.createContext("/metrics", MetricsEndpoint::handleScrape);
+            server.setExecutor(null); // Scrapes are rare, the dispatcher thread is enough
+            server.start();
+            System.out.println("[MetricsEndpoint] Serving Prometheus metrics on http://" + host + ":" + port + "/metrics");
+        } catch (Exception e) {
+            System.err.println("[MetricsEndpoint] Failed to start metrics endpoint on " + host + ":" + portValue + ": " + e.getMessage());
+            server = null;
+        }
+    }
+
+    /**
+     * Stops the endpoint if it is running.
+     */
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private static void handleScrape(HttpExchange exchange) throws java.io.IOException {
+        byte[] body = render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        if ("HEAD".equalsIgnoreCase(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    /**
+     * Renders all metrics in Prometheus text format.
+     *
+     * @return The exposition text
+     */
+    public static String render() {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "spt_camera_fps", "gauge", "Output frame rate reported by ffmpeg for the camera's stream or preview");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_camera_fps", labels(m), m.getFps());
+        }
+        header(out, "spt_camera_frames_read_total", "counter", "Raw preview frames read from ffmpeg pipes");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_camera_frames_read_total", labels(m), m.getFramesRead());
+        }
+        header(out, "spt_camera_frames_skipped_total", "counter", "Raw preview frames read from ffmpeg pipes but not displayed");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_camera_frames_skipped_total", labels(m), m.getFramesSkipped());
+        }
+        header(out, "spt_camera_ffmpeg_frames_dropped", "gauge", "Frames dropped by the running ffmpeg pipelines; resets when they restart");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_camera_ffmpeg_frames_dropped", labels(m), m.getFramesDropped());
+        }
+        header(out, "spt_camera_bytes_piped_total", "counter", "Raw preview bytes read from ffmpeg pipes");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_camera_bytes_piped_total", labels(m), m.getBytesPiped());
+        }
+        header(out, "spt_ffmpeg_restarts_total", "counter", "Stream and preview restarts after a failure");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_ffmpeg_restarts_total", labels(m), m.getRestarts());
+        }
+        header(out, "spt_camera_quarantined", "gauge", "1 while restarts are held off after repeated ffmpeg failures");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_camera_quarantined", labels(m), m.isQuarantined() ? 1 : 0);
+        }
+        header(out, "spt_camera_input_bytes_per_second", "gauge", "Estimated USB bandwidth of the capture mode chosen for the camera");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            if (m.getInputBytesPerSecond() >= 0) {
+                sample(out, "spt_camera_input_bytes_per_second", labels(m), m.getInputBytesPerSecond());
+            }
+        }
+        header(out, "spt_ffmpeg_running", "gauge", "1 if the camera's stream ffmpeg process is running");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_ffmpeg_running", labels(m), m.getFFmpegPid() > 0 ? 1 : 0);
+        }
+        header(out, "spt_hls_segments_served_total", "counter", "HLS media segments served to the player");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_hls_segments_served_total", labels(m), m.getSegmentsServed());
+        }
+        header(out, "spt_hls_bytes_served_total", "counter", "HLS bytes served to the player");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            sample(out, "spt_hls_bytes_served_total", labels(m), m.getHlsBytesServed());
+        }
+        header(out, "spt_snapshot_latency_seconds", "histogram", "Time to capture a single camera snapshot");
+        for (CameraMetrics m : CameraMetrics.all()) {
+            m.getSnapshotLatencyHistogram().writePrometheus(out, "spt_snapshot_latency_seconds", labels(m));
+        }
+
+        SnapshotServiceMXBean snapshots = SnapshotService.getStatistics();
+        header(out, "spt_snapshots_total", "counter", "Snapshot captures by result");
+        sample(out, "spt_snapshots_total", "result=\"success\"", snapshots.getSnapshotsSucceeded());
+        sample(out, "spt_snapshots_total", "result=\"failure\"", snapshots.getSnapshotsFailed());
+        header(out, "spt_snapshot_retries_total", "counter", "Snapshot captures retried after a busy device");
+        sample(out, "spt_snapshot_retries_total", "", snapshots.getSnapshotsRetried());
+        header(out, "spt_snapshots_in_flight", "gauge", "Snapshot captures currently running");
+        sample(out, "spt_snapshots_in_flight", "", snapshots.getSnapshotsInFlight());
+
+        FFmpegLogWriter logWriter = FFmpegLogWriter.getInstance();
+        header(out, "spt_log_queue_depth", "gauge", "FFmpeg log lines waiting to be written");
+        sample(out, "spt_log_queue_depth", "", logWriter.getQueueDepth());
+        header(out, "spt_log_lines_dropped_total", "counter", "FFmpeg log lines dropped because the queue was full");
+        sample(out, "spt_log_lines_dropped_total", "", logWriter.getDroppedLines());
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        header(out, "spt_jvm_memory_used_bytes", "gauge", "JVM memory in use");
+        sample(out, "spt_jvm_memory_used_bytes", "area=\"heap\"", heap.getUsed());
+        sample(out, "spt_jvm_memory_used_bytes", "area=\"nonheap\"", nonHeap.getUsed());
+        header(out, "spt_jvm_memory_committed_bytes", "gauge", "JVM memory committed by the OS");
+        sample(out, "spt_jvm_memory_committed_bytes", "area=\"heap\"", heap.getCommitted());
+        sample(out, "spt_jvm_memory_committed_bytes", "area=\"nonheap\"", nonHeap.getCommitted());
+        header(out, "spt_jvm_memory_max_bytes", "gauge", "Maximum JVM heap size");
+        sample(out, "spt_jvm_memory_max_bytes", "area=\"heap\"", heap.getMax());
+        header(out, "spt_jvm_threads", "gauge", "Live JVM threads");
+        sample(out, "spt_jvm_threads", "", ManagementFactory.getThreadMXBean().getThreadCount());
+
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String labels(CameraMetrics m) {
+        return "camera=\"" + escape(m.getCameraName()) + "\",device=\"" + escape(m.getDeviceId()) + "\"";
+    }
+
+    /**
+     * Escapes a label value as required by the text format.
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.simplephototool;
+
+import javafx.scene.Node;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.RowConstraints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lays out preview items in a {@link GridPane} and updates it incrementally.
+ * Inserting or removing an item only moves the cells after it; the whole grid is
+ * laid out again only when the number of columns changes.
+ */
+public class PreviewGrid {
+
+    private final GridPane grid;
+    // Items in display order; cell i is at column i % columns, row i / columns
+    private final List<Node> cells = new ArrayList<>();
+    private int columns;
+
+    /**
+     * Creates a grid layout manager.
+     *
+     * @param grid The grid pane to fill; its children are managed by this class
+     */
+    public PreviewGrid(GridPane grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Replaces the grid's content.
+     *
+     * @param items Items in display order
+     */
+    public void setAll(List<? extends Node> items) {
+        cells.clear();
+        cells.addAll(items);
+        grid.getChildren().setAll(items);
+        columns = 0; // Forces a full layout
+        layoutFrom(0);
+    }
+
+    /**
+     * Inserts an item.
+     *
+     * @param index Position in display order
+     * @param item The item
+     */
+    public void insert(int index, Node item) {
+        int position = Math.max(0, Math.min(index, cells.size()));
+        cells.add(position, item);
+        grid.getChildren().add(item);
+        layoutFrom(position);
+    }
+
+    /**
+     * Removes an item, if present.
+     *
+     * @param item The item
+     */
+    public void remove(Node item) {
+        int position = cells.indexOf(item);
+        if (position < 0) {
+            return;
+        }
+        cells.remove(position);
+        grid.getChildren().remove(item);
+        layoutFrom(position);
+    }
+
+    /**
+     * Updates constraints for the current item count and moves cells from the given position on.
+     */
+    private void layoutFrom(int position) {
+        int count = cells.size();
+        int cols = calculateOptimalColumns(count);
+        if (cols != columns) {
+            columns = cols;
+            position = 0;
+            grid.getColumnConstraints().clear();
+            for (int i = 0; i < cols; i++) {
+                ColumnConstraints colConstraint = new ColumnConstraints();
+                colConstraint.setHgrow(Priority.SOMETIMES);
+                colConstraint.setMinWidth(10);
+                colConstraint.setPercentWidth(100.0 / cols);
+                grid.getColumnConstraints().add(colConstraint);
+            }
+        }
+
+        int rows = count == 0 ? 0 : (count + cols - 1) / cols;
+        List<RowConstraints> rowConstraints = grid.getRowConstraints();
+        while (rowConstraints.size() > rows) {
+            rowConstraints.remove(rowConstraints.size() - 1);
+        }
+        while (rowConstraints.size() < rows) {
+            RowConstraints rowConstraint = new RowConstraints();
+            rowConstraint.setVgrow(Priority.SOMETIMES);
+            rowConstraint.setMinHeight(10);
+            rowConstraints.add(rowConstraint);
+        }
+
+        for (int i = position; i < count; i++) {
+            Node item = cells.get(i);
+            Integer col = i % cols;
+            Integer row = i / cols;
+            if (!col.equals(GridPane.getColumnIndex(item))) {
+                GridPane.setColumnIndex(item, col);
+            }
+            if (!row.equals(GridPane.getRowIndex(item))) {
+                GridPane.setRowIndex(item, row);
+            }
+        }
+    }
+
+    /**
+     * Calculates the optimal number of columns based on the number of items.
+     * Uses a simple heuristic: 1 item = 1 col, 2-4 items = 2 cols, 5-9 items = 3 cols, more = 4 cols.
+     */
+    static int calculateOptimalColumns(int itemCount) {
+        if (itemCount <= 1) {
+            return 1;
+        } else if (itemCount <= 4) {
+            return 2;
+        } else if (itemCount <= 9) {
+            return 3;
+        } else {
+            return 4;
+        }
+    }
+}
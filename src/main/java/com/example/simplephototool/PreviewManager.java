@@ -1,26 +1,89 @@
 package com.example.simplephototool;
 
+import javafx.beans.value.ChangeListener;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manages camera preview items for active cameras.
  * Creates and maintains CameraPreviewItem instances for cameras with active checkbox ticked.
+ * <p>
+ * Camera list changes and preview checkbox toggles are applied per camera as they
+ * happen, and reported to a {@link Listener} so the grid can update only what changed.
  */
-public class PreviewManager {
+public class PreviewManager implements PreviewManagerMXBean {
+    
+    /** Time all previews together get to stop before their ffmpeg processes are killed. */
+    private static final long STOP_ALL_TIMEOUT_MS = 3000;
     
     private final ObservableList<Camera> cameras;
     private Settings settings;
-    private final Map<String, CameraPreviewItem> previewItems = new HashMap<>();
+    // Concurrent so the JMX view can read them off the FX thread
+    private final Map<String, CameraPreviewItem> previewItems = new ConcurrentHashMap<>();
+    
+    // Keep PreviewTile for backward compatibility; created on first use
+    private final Map<String, PreviewTile> tiles = new ConcurrentHashMap<>();
+    private final Map<String, Camera> camerasById = new ConcurrentHashMap<>();
     
-    // Keep PreviewTile for backward compatibility
-    private final Map<String, PreviewTile> tiles = new HashMap<>();
+    // Cameras being tracked, with the listener registered on each; FX thread only
+    private final Map<Camera, Entry> entries = new HashMap<>();
+    private final ListChangeListener<Camera> cameraListListener = this::onCamerasChanged;
+    private Listener listener;
     
     private TileSize currentTileSize = TileSize.MEDIUM;
     
+    /**
+     * Receives preview item changes, e.g. to update the preview grid.
+     */
+    public interface Listener {
+        /**
+         * Called after a preview item was created.
+         *
+         * @param item The new item
+         * @param position Its position among all preview items, in camera list order
+         */
+        void previewAdded(CameraPreviewItem item, int position);
+        
+        /**
+         * Called after a preview item was removed, before it is disposed.
+         *
+         * @param item The removed item
+         */
+        void previewRemoved(CameraPreviewItem item);
+        
+        /**
+         * Called when the camera list was reordered.
+         *
+         * @param items All preview items in the new order
+         */
+        void previewsReordered(List<CameraPreviewItem> items);
+    }
+    
+    /**
+     * Tracking state for one camera.
+     */
+    private static class Entry {
+        // Key the camera's item and tile are stored under, to notice edits
+        final String deviceId;
+        ChangeListener<Boolean> previewEnabledListener;
+        CameraPreviewItem item;
+        
+        Entry(String deviceId) {
+            this.deviceId = deviceId;
+        }
+    }
+    
     /**
      * Creates a new PreviewManager.
      *
@@ -32,83 +95,181 @@ public class PreviewManager {
         this.settings = settings;
         
         // Build initial preview items for active cameras
-        refresh();
+        for (Camera camera : cameras) {
+            track(camera);
+        }
+        
+        // Apply additions and removals as they happen
+        cameras.addListener(cameraListListener);
         
-        // Listen for changes to the camera list
-        cameras.addListener((ListChangeListener<Camera>) change -> {
-            while (change.next()) {
-                if (change.wasAdded() || change.wasRemoved() || change.wasUpdated()) {
-                    refresh();
+        JmxRegistry.register("PreviewManager", null, this);
+    }
+    
+    /**
+     * Sets the listener notified when preview items are added, removed or reordered.
+     *
+     * @param listener The listener, or null
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+    
+    private void onCamerasChanged(ListChangeListener.Change<? extends Camera> change) {
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                if (listener != null) {
+                    listener.previewsReordered(getOrderedPreviewItems());
+                }
+            } else {
+                for (Camera camera : change.getRemoved()) {
+                    untrack(camera);
+                }
+                for (Camera camera : change.getAddedSubList()) {
+                    track(camera);
                 }
             }
-        });
+        }
     }
     
     /**
-     * Refreshes the preview items based on cameras with preview enabled.
+     * Brings the preview items in line with the camera list, e.g. after a camera's
+     * device ID was edited. Cameras whose device ID is unchanged keep their items.
      */
     public void refresh() {
         System.out.println("[PreviewManager] refresh() called - cameras count: " + cameras.size());
         
-        // Create preview items for cameras with preview enabled that don't have one yet
+        Set<Camera> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(cameras);
+        for (Camera camera : new ArrayList<>(entries.keySet())) {
+            if (!current.contains(camera)) {
+                untrack(camera);
+            }
+        }
         for (Camera camera : cameras) {
-            String deviceId = camera.getDeviceId();
-            
-            // Listen to previewEnabled property changes
-            camera.previewEnabledProperty().addListener((obs, wasEnabled, isEnabled) -> {
-                System.out.println("[PreviewManager] previewEnabled changed for '" + camera.getName() + 
-                    "': " + wasEnabled + " -> " + isEnabled + 
-                    " (previewItems.containsKey=" + previewItems.containsKey(deviceId) + ")");
-                if (isEnabled && !previewItems.containsKey(deviceId)) {
-                    createPreviewItem(camera);
-                } else if (!isEnabled && previewItems.containsKey(deviceId)) {
-                    removePreviewItem(deviceId);
-                }
-            });
-            
-            if (camera.isPreviewEnabled() && !previewItems.containsKey(deviceId)) {
-                createPreviewItem(camera);
-            } else if (!camera.isPreviewEnabled() && previewItems.containsKey(deviceId)) {
-                removePreviewItem(deviceId);
+            Entry entry = entries.get(camera);
+            if (entry != null && !entry.deviceId.equals(camera.getDeviceId())) {
+                // Also drops the metrics and MBean registered under the old ID
+                untrack(camera);
+                entry = null;
             }
-            
-            // Also create legacy PreviewTile for backward compatibility
-            if (!tiles.containsKey(deviceId)) {
-                PreviewTile tile = new PreviewTile(camera, settings, currentTileSize);
-                tiles.put(deviceId, tile);
+            if (entry == null) {
+                track(camera);
             }
         }
+    }
+    
+    /**
+     * Starts tracking a camera: listens to its preview checkbox and creates its
+     * preview item if preview is enabled.
+     */
+    private void track(Camera camera) {
+        if (entries.containsKey(camera)) {
+            return;
+        }
+        Entry entry = new Entry(camera.getDeviceId());
+        entry.previewEnabledListener = (obs, wasEnabled, isEnabled) -> {
+            System.out.println("[PreviewManager] previewEnabled changed for '" + camera.getName() + 
+                "': " + wasEnabled + " -> " + isEnabled);
+            if (isEnabled && entry.item == null) {
+                createPreviewItem(camera, entry);
+            } else if (!isEnabled && entry.item != null) {
+                removePreviewItem(entry);
+            }
+        };
+        camera.previewEnabledProperty().addListener(entry.previewEnabledListener);
+        entries.put(camera, entry);
+        camerasById.put(entry.deviceId, camera);
         
-        // Remove preview items for cameras that no longer exist
-        previewItems.keySet().removeIf(deviceId -> 
-            cameras.stream().noneMatch(c -> c.getDeviceId().equals(deviceId)));
-        tiles.keySet().removeIf(deviceId -> 
-            cameras.stream().noneMatch(c -> c.getDeviceId().equals(deviceId)));
+        if (camera.isPreviewEnabled()) {
+            createPreviewItem(camera, entry);
+        }
+    }
+    
+    /**
+     * Stops tracking a camera and disposes its preview item and tile. Its metrics
+     * are dropped too, unless another tracked camera uses the same device ID.
+     */
+    private void untrack(Camera camera) {
+        Entry entry = entries.remove(camera);
+        if (entry == null) {
+            return;
+        }
+        camera.previewEnabledProperty().removeListener(entry.previewEnabledListener);
+        removePreviewItem(entry);
+        camerasById.remove(entry.deviceId, camera);
+        PreviewTile tile = tiles.remove(entry.deviceId);
+        if (tile != null) {
+            tile.dispose();
+        }
+        if (entries.values().stream().noneMatch(other -> other.deviceId.equals(entry.deviceId))) {
+            CameraMetrics.remove(entry.deviceId);
+        }
     }
     
     /**
      * Creates a preview item for the specified camera.
      */
-    private void createPreviewItem(Camera camera) {
+    private void createPreviewItem(Camera camera, Entry entry) {
         System.out.println("[PreviewManager] createPreviewItem() for '" + camera.getName() + 
             "' deviceId=" + camera.getDeviceId());
         CameraPreviewItem item = new CameraPreviewItem(camera, settings, currentTileSize);
-        previewItems.put(camera.getDeviceId(), item);
+        entry.item = item;
+        previewItems.put(entry.deviceId, item);
         System.out.println("[PreviewManager] CameraPreviewItem created and stored - total items: " + previewItems.size());
+        if (listener != null) {
+            listener.previewAdded(item, positionOf(camera));
+        }
     }
     
     /**
-     * Removes and disposes a preview item.
+     * Removes and disposes a camera's preview item.
      */
-    private void removePreviewItem(String deviceId) {
-        System.out.println("[PreviewManager] removePreviewItem() for deviceId=" + deviceId);
-        CameraPreviewItem item = previewItems.remove(deviceId);
-        if (item != null) {
-            System.out.println("[PreviewManager] Disposing CameraPreviewItem for '" + item.getCamera().getName() + "'");
-            item.dispose();
-        } else {
-            System.out.println("[PreviewManager] WARNING: No preview item found to remove!");
+    private void removePreviewItem(Entry entry) {
+        CameraPreviewItem item = entry.item;
+        if (item == null) {
+            return;
+        }
+        System.out.println("[PreviewManager] removePreviewItem() for deviceId=" + entry.deviceId);
+        entry.item = null;
+        previewItems.remove(entry.deviceId, item);
+        if (listener != null) {
+            listener.previewRemoved(item);
+        }
+        System.out.println("[PreviewManager] Disposing CameraPreviewItem for '" + item.getCamera().getName() + "'");
+        item.dispose();
+    }
+    
+    /**
+     * Gets a camera's position among the cameras that have a preview item.
+     */
+    private int positionOf(Camera camera) {
+        int position = 0;
+        for (Camera other : cameras) {
+            if (other == camera) {
+                break;
+            }
+            Entry entry = entries.get(other);
+            if (entry != null && entry.item != null) {
+                position++;
+            }
         }
+        return position;
+    }
+    
+    /**
+     * Gets the preview items in camera list order.
+     *
+     * @return Preview items, in the order they appear in the grid
+     */
+    public List<CameraPreviewItem> getOrderedPreviewItems() {
+        List<CameraPreviewItem> items = new ArrayList<>();
+        for (Camera camera : cameras) {
+            Entry entry = entries.get(camera);
+            if (entry != null && entry.item != null) {
+                items.add(entry.item);
+            }
+        }
+        return items;
     }
     
     /**
@@ -131,31 +292,47 @@ public class PreviewManager {
     }
     
     /**
-     * Starts previews for all active cameras.
+     * Starts previews for all active cameras. Returns immediately; the streams
+     * start in parallel on {@link SessionStarter}'s pool.
+     *
+     * @return Future completing when every start attempt has finished
      */
-    public void startAllPreviews() {
+    public CompletableFuture<Void> startAllPreviews() {
+        List<CompletableFuture<Boolean>> starts = new ArrayList<>();
         for (CameraPreviewItem item : previewItems.values()) {
             if (!item.isRunning()) {
-                item.startPreview();
+                starts.add(item.startPreviewAsync());
             }
         }
+        return CompletableFuture.allOf(starts.toArray(new CompletableFuture<?>[0]));
     }
     
     /**
-     * Stops all running previews.
+     * Stops all previews, including ones still starting and ones waiting for a
+     * supervised restart, so their devices are free afterwards. Every ffmpeg process
+     * is asked to quit first and then all of them are waited for against one
+     * deadline, so stopping takes about as long as the slowest stream rather than
+     * the sum of all of them.
      */
     public void stopAllPreviews() {
-        for (CameraPreviewItem item : previewItems.values()) {
-            if (item.isRunning()) {
-                item.stopPreview();
-            }
+        // requestStop() is safe on idle items and also cancels pending restarts
+        List<CameraPreviewItem> stoppingItems = new ArrayList<>(previewItems.values());
+        for (CameraPreviewItem item : stoppingItems) {
+            item.requestStop();
         }
         
         // Also stop legacy tiles
-        for (PreviewTile tile : tiles.values()) {
-            if (tile.isRunning()) {
-                tile.stopPreview();
-            }
+        List<PreviewTile> stoppingTiles = new ArrayList<>(tiles.values());
+        for (PreviewTile tile : stoppingTiles) {
+            tile.requestStop();
+        }
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_ALL_TIMEOUT_MS);
+        for (CameraPreviewItem item : stoppingItems) {
+            item.awaitStop(deadline);
+        }
+        for (PreviewTile tile : stoppingTiles) {
+            tile.awaitStop(deadline);
         }
         
         // Reset port counter when all streams are stopped
@@ -170,7 +347,7 @@ public class PreviewManager {
     public void startPreview(String deviceId) {
         CameraPreviewItem item = previewItems.get(deviceId);
         if (item != null && !item.isRunning()) {
-            item.startPreview();
+            item.startPreviewAsync();
         }
         
         // Also check legacy tiles
@@ -233,6 +410,12 @@ public class PreviewManager {
      */
     public void shutdown() {
         stopAllPreviews();
+        cameras.removeListener(cameraListListener);
+        for (Map.Entry<Camera, Entry> tracked : entries.entrySet()) {
+            tracked.getKey().previewEnabledProperty().removeListener(tracked.getValue().previewEnabledListener);
+        }
+        entries.clear();
+        camerasById.clear();
         for (CameraPreviewItem item : previewItems.values()) {
             item.dispose();
         }
@@ -241,22 +424,59 @@ public class PreviewManager {
         }
         previewItems.clear();
         tiles.clear();
+        JmxRegistry.unregister("PreviewManager", null);
+    }
+    
+    @Override
+    public int getCameraCount() {
+        return cameras.size();
+    }
+    
+    @Override
+    public int getPreviewItemCount() {
+        return previewItems.size();
+    }
+    
+    @Override
+    public int getRunningPreviewCount() {
+        int count = 0;
+        for (CameraPreviewItem item : previewItems.values()) {
+            if (item.isRunning()) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int getRunningTileCount() {
+        int count = 0;
+        for (PreviewTile tile : tiles.values()) {
+            if (tile.isRunning()) {
+                count++;
+            }
+        }
+        return count;
     }
     
     // Legacy methods for backward compatibility with PreviewTile
     
     /**
-     * Gets a preview tile by device ID (legacy).
+     * Gets a preview tile by device ID (legacy), creating it on first use.
      *
      * @param deviceId The device ID
-     * @return The preview tile
+     * @return The preview tile, or null if no camera has this device ID
      */
     public PreviewTile getTile(String deviceId) {
-        return tiles.get(deviceId);
+        Camera camera = camerasById.get(deviceId);
+        if (camera == null) {
+            return null;
+        }
+        return tiles.computeIfAbsent(deviceId, id -> new PreviewTile(camera, settings, currentTileSize));
     }
     
     /**
-     * Gets all preview tiles (legacy).
+     * Gets all preview tiles created so far (legacy).
      *
      * @return Map of device ID to PreviewTile
      */
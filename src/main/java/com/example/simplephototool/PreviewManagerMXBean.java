@@ -0,0 +1,27 @@
+package com.example.simplephototool;
+
+/**
+ * Aggregate management view of {@link PreviewManager}.
+ */
+public interface PreviewManagerMXBean {
+
+    /**
+     * @return Cameras known to the manager
+     */
+    int getCameraCount();
+
+    /**
+     * @return Preview items created for cameras with preview enabled
+     */
+    int getPreviewItemCount();
+
+    /**
+     * @return Preview items whose stream is running
+     */
+    int getRunningPreviewCount();
+
+    /**
+     * @return Raw preview tiles whose ffmpeg process is running
+     */
+    int getRunningTileCount();
+}
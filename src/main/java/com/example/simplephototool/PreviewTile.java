@@ -14,7 +14,11 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -23,8 +27,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class PreviewTile extends VBox {
     
-    private static final int THUMBNAIL_FPS = 15;
-    
     private final Camera camera;
     private Settings settings;
     private final ImageView imageView;
@@ -38,8 +40,9 @@ public class PreviewTile extends VBox {
     
     private Thread previewThread;
     private final AtomicBoolean shouldRun = new AtomicBoolean(false);
-    private Process ffmpegProcess;
+    private volatile Process ffmpegProcess;
     private final CameraStrategy strategy;
+    private FFmpegSupervisor.Watch watch;
     
     private double tileWidth;
     private double tileHeight;
@@ -151,13 +154,34 @@ public class PreviewTile extends VBox {
         shouldRun.set(true);
         running.set(true);
         
-        previewThread = new Thread(() -> {
-            long frameInterval = 1000 / THUMBNAIL_FPS;
-            
+        // Restart the pipeline if ffmpeg crashes or stops delivering frames
+        if (watch == null) {
+            watch = FFmpegSupervisor.getInstance().watch(camera, CameraMetrics.Pipeline.PREVIEW,
+                () -> {
+                    Process process = ffmpegProcess;
+                    return process != null && process.isAlive();
+                },
+                () -> Platform.runLater(this::restartPreview),
+                status -> Platform.runLater(() -> {
+                    statusLabel.setText(status);
+                    statusLabel.setVisible(true);
+                }));
+        }
+        watch.started();
+        FFmpegSupervisor.Watch currentWatch = watch;
+        
+        previewThread = IoThreads.start("PreviewTile-" + camera.getName(), () -> {
+            // Completes on the first frame or end of stream, when ffmpeg is done opening the device
+            CompletableFuture<Void> opened = new CompletableFuture<>();
             try {
+                FlightEvents.FirstFrame firstFrame = new FlightEvents.FirstFrame();
+                firstFrame.begin();
                 ProcessBuilder pb = strategy.buildFFmpegCommand(camera, settings);
                 pb.redirectErrorStream(false);
-                ffmpegProcess = pb.start();
+                // Spawn through SessionStarter so cameras on one USB controller open in turn
+                ffmpegProcess = SessionStarter.submit(camera,
+                        () -> FFmpegProcesses.start(pb, camera.getName(), "preview"), process -> opened).join();
+                startProgressReader(ffmpegProcess);
                 
                 InputStream inputStream = new BufferedInputStream(ffmpegProcess.getInputStream());
                 
@@ -170,28 +194,55 @@ public class PreviewTile extends VBox {
                 
                 byte[] frameBuffer = new byte[frameSize];
                 WritableImage writableImage = new WritableImage(width, height);
-                PixelFormat<java.nio.ByteBuffer> pixelFormat = PixelFormat.getByteRgbInstance();
+                PixelFormat<java.nio.ByteBuffer> pixelFormat = "bgra".equals(strategy.getFFmpegPixelFormat())
+                        ? PixelFormat.getByteBgraPreInstance()
+                        : PixelFormat.getByteRgbInstance();
                 
-                long lastFrameTime = 0;
+                CameraMetrics metrics = CameraMetrics.forCamera(camera);
+                // Set while a frame waits for the FX thread
+                AtomicBoolean uploadPending = new AtomicBoolean();
                 
                 while (shouldRun.get()) {
-                    long currentTime = System.currentTimeMillis();
-                    
                     // Read frame
                     int bytesRead = readFully(inputStream, frameBuffer);
+                    opened.complete(null);
                     if (bytesRead < frameSize) {
+                        if (shouldRun.get()) {
+                            currentWatch.failed("end of stream");
+                        }
                         break; // End of stream
                     }
+                    metrics.recordFrameRead(frameSize);
+                    if (firstFrame != null) {
+                        firstFrame.end();
+                        if (firstFrame.shouldCommit()) {
+                            firstFrame.camera = camera.getName();
+                            firstFrame.pipeline = "preview";
+                            firstFrame.commit();
+                        }
+                        firstFrame = null;
+                    }
 
-                    // Frame rate limiting
-                    if (currentTime - lastFrameTime < frameInterval) {
+                    // ffmpeg already limits the frame rate; only skip while the FX thread
+                    // has not drawn the previous frame, so updates do not queue up
+                    if (!uploadPending.compareAndSet(false, true)) {
+                        metrics.recordFrameSkipped();
+                        FlightEvents.PreviewFrameDropped dropped = new FlightEvents.PreviewFrameDropped();
+                        if (dropped.shouldCommit()) {
+                            dropped.camera = camera.getName();
+                            dropped.reason = "ui-busy";
+                            dropped.commit();
+                        }
                         continue;
                     }
                     
                     // Convert byte array to JavaFX image and update UI
                     byte[] frameCopy = frameBuffer.clone();
                     Platform.runLater(() -> {
+                        uploadPending.set(false);
                         if (shouldRun.get()) {
+                            FlightEvents.FrameUpload upload = new FlightEvents.FrameUpload();
+                            upload.begin();
                             try {
                                 writableImage.getPixelWriter().setPixels(
                                     0, 0, width, height,
@@ -200,10 +251,16 @@ public class PreviewTile extends VBox {
                                 );
                                 imageView.setImage(writableImage);
                             } catch (Exception ignored) {}
+                            upload.end();
+                            if (upload.shouldCommit()) {
+                                upload.camera = camera.getName();
+                                upload.width = width;
+                                upload.height = height;
+                                upload.bytes = frameCopy.length;
+                                upload.commit();
+                            }
                         }
                     });
-
-                    lastFrameTime = currentTime;
                 }
             } catch (Exception e) {
                 System.err.println("Error in preview tile for " + camera.getName() + ": " + e.getMessage());
@@ -211,23 +268,48 @@ public class PreviewTile extends VBox {
                     statusLabel.setText("⚠ Error");
                     statusLabel.setVisible(true);
                 });
+                if (shouldRun.get()) {
+                    currentWatch.failed(e.getMessage());
+                }
             } finally {
+                opened.complete(null);
                 if (ffmpegProcess != null && ffmpegProcess.isAlive()) {
                     ffmpegProcess.destroy();
                 }
                 ffmpegProcess = null;
             }
         });
-        
-        previewThread.setDaemon(true);
-        previewThread.setName("PreviewTile-" + camera.getName());
-        previewThread.start();
+    }
+    
+    /**
+     * Drains the preview process's stderr on a separate thread. Progress reports
+     * go to the camera's metrics; other output is only echoed in verbose mode.
+     * Without a reader, a chatty ffmpeg would block once the pipe buffer fills.
+     */
+    private void startProgressReader(Process process) {
+        CameraMetrics metrics = CameraMetrics.forCamera(camera);
+        FFmpegProgress.Parser progress = metrics.newParser(CameraMetrics.Pipeline.PREVIEW);
+        IoThreads.start("PreviewTile-stderr-" + camera.getName(), () -> {
+            try (BufferedReader err = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+                String line;
+                while ((line = err.readLine()) != null) {
+                    if (!progress.accept(line) && settings.getVerboseOutput()) {
+                        System.out.println("[PreviewTile-" + camera.getName() + "] " + line);
+                    }
+                }
+            } catch (Exception e) {
+                // Stream closed when the process is destroyed
+            } finally {
+                metrics.clearProgress(CameraMetrics.Pipeline.PREVIEW);
+            }
+        });
     }
     
     /**
      * Reads exactly the requested number of bytes from the input stream.
+     * Package-private and static so the frame path can be benchmarked without a tile.
      */
-    private int readFully(InputStream in, byte[] buffer) throws java.io.IOException {
+    static int readFully(InputStream in, byte[] buffer) throws java.io.IOException {
         int totalRead = 0;
         while (totalRead < buffer.length) {
             int bytesRead = in.read(buffer, totalRead, buffer.length - totalRead);
@@ -243,6 +325,55 @@ public class PreviewTile extends VBox {
      * Stops the camera preview.
      */
     public void stopPreview() {
+        if (watch != null) {
+            watch.cancel();
+            watch = null;
+        }
+        stopProcess();
+    }
+    
+    /**
+     * Restarts a failed preview on behalf of the supervisor, keeping its watch.
+     */
+    private void restartPreview() {
+        if (watch == null) {
+            return; // Stopped by the user while the restart was pending
+        }
+        stopProcess();
+        startPreview();
+    }
+    
+    /**
+     * Begins stopping the preview without waiting for ffmpeg to exit; finish with
+     * {@link #awaitStop(long)}. Used to stop many previews in parallel.
+     */
+    public void requestStop() {
+        if (watch != null) {
+            watch.cancel();
+            watch = null;
+        }
+        shouldRun.set(false);
+        FFmpegProcesses.requestQuit(ffmpegProcess);
+    }
+    
+    /**
+     * Waits for a stop begun with {@link #requestStop()} to finish, killing ffmpeg
+     * if it has not exited by the deadline.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} value to stop waiting at
+     */
+    public void awaitStop(long deadlineNanos) {
+        Process process = ffmpegProcess;
+        if (process != null && !FFmpegProcesses.awaitExit(process, deadlineNanos)) {
+            System.err.println("[PreviewTile] ffmpeg for '" + camera.getName() + "' did not quit in time, killed");
+        }
+        joinPreviewThread(deadlineNanos);
+    }
+    
+    /**
+     * Stops the preview thread and its FFmpeg process.
+     */
+    private void stopProcess() {
         shouldRun.set(false);
         
         // Terminate FFmpeg process
@@ -250,9 +381,16 @@ public class PreviewTile extends VBox {
             ffmpegProcess.destroy();
         }
 
+        joinPreviewThread(System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+    }
+    
+    /**
+     * Waits for the preview thread to finish until the deadline and resets the tile.
+     */
+    private void joinPreviewThread(long deadlineNanos) {
         if (previewThread != null) {
             try {
-                previewThread.join(1000);
+                previewThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime())));
             } catch (InterruptedException ignored) {
                 Thread.currentThread().interrupt();
             }
@@ -0,0 +1,78 @@
+package com.example.simplephototool;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a camera's feed once so it can be replayed as a virtual camera by
+ * {@link SyntheticCameraStrategy}. The feed is stored without re-encoding, so
+ * benchmarks replay the same raw or MJPEG frames the camera produced.
+ * <p>
+ * Command line use, with the platform strategy selected as usual:
+ * {@code java -cp SimplePhotoTool.jar com.example.simplephototool.ReplayRecorder /dev/video0 30 desk.mkv}
+ * then start the app with {@code -Dspt.camera.strategy=synthetic -Dspt.replay.files=desk.mkv}.
+ */
+public class ReplayRecorder {
+
+    /**
+     * Records a camera to a Matroska file.
+     *
+     * @param camera The camera to record
+     * @param settings Application settings (for resolution)
+     * @param output The .mkv file to write
+     * @param seconds Length of the recording
+     * @return true if ffmpeg wrote the file successfully
+     */
+    public static boolean record(Camera camera, Settings settings, Path output, int seconds) {
+        CameraStrategy strategy = CameraStrategyFactory.getStrategy();
+        ProcessBuilder pb = strategy.buildRecordCommand(camera, settings, output.toString(), seconds);
+        pb.redirectErrorStream(true);
+        System.out.println("[ReplayRecorder] Recording " + seconds + "s from " + camera.getDeviceId() + " to " + output);
+
+        try {
+            Process process = FFmpegProcesses.start(pb, camera.getName(), "record");
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (settings.getVerboseOutput()) {
+                        System.out.println(line);
+                    }
+                }
+            }
+            // Output reaches EOF when ffmpeg exits, so this only collects the exit status
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                System.err.println("[ReplayRecorder] ffmpeg did not exit after recording " + camera.getDeviceId());
+                return false;
+            }
+            if (process.exitValue() != 0 || !Files.isRegularFile(output)) {
+                System.err.println("[ReplayRecorder] ffmpeg failed with exit code " + process.exitValue());
+                return false;
+            }
+            System.out.println("[ReplayRecorder] Saved " + Files.size(output) + " bytes to " + output);
+            return true;
+        } catch (Exception e) {
+            System.err.println("[ReplayRecorder] Error recording " + camera.getDeviceId() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Records from the command line.
+     *
+     * @param args device ID, length in seconds, output file, and optionally a resolution such as 1280x720
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: ReplayRecorder <deviceId> <seconds> <output.mkv> [WIDTHxHEIGHT]");
+            System.exit(2);
+        }
+        Settings settings = SettingsManager.loadSettings();
+        Camera camera = new Camera("replay-recorder", args[0], true, args.length > 3 ? args[3] : null);
+        boolean success = record(camera, settings, Path.of(args[2]), Integer.parseInt(args[1]));
+        System.exit(success ? 0 : 1);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.simplephototool;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs the blocking part of starting camera sessions (spawning ffmpeg, binding
+ * HTTP servers, creating temp directories and log files) on a bounded background
+ * pool, so starting many previews never blocks the FX thread.
+ * <p>
+ * At most {@value #POOL_SIZE_PROPERTY} sessions start at once, and at most
+ * {@value #PER_CONTROLLER_PROPERTY} per USB host controller, because opening
+ * several cameras on one hub at the same time is what makes devices fail to
+ * negotiate bandwidth. Further starts wait in a per-controller queue.
+ * <p>
+ * ffmpeg opens the device only after it was spawned, so a start keeps its
+ * controller slot until the session reports that it is open (first frame,
+ * first segment or process exit), or for at most {@value #OPEN_TIMEOUT_MS} ms.
+ * The pool thread is free again as soon as the blocking work returns.
+ */
+public class SessionStarter {
+
+    public static final String POOL_SIZE_PROPERTY = "spt.session.startThreads";
+    public static final String PER_CONTROLLER_PROPERTY = "spt.session.startsPerController";
+
+    private static final int POOL_SIZE = Math.max(1, Integer.getInteger(POOL_SIZE_PROPERTY, 4));
+    private static final int PER_CONTROLLER = Math.max(1, Integer.getInteger(PER_CONTROLLER_PROPERTY, 2));
+    private static final long OPEN_TIMEOUT_MS = 10_000;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private static final ExecutorService pool = Executors.newFixedThreadPool(POOL_SIZE, runnable -> {
+        Thread thread = new Thread(runnable, "SessionStarter-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by the class lock: starts running and waiting per controller
+    private static final Map<String, Integer> running = new HashMap<>();
+    private static final Map<String, Queue<Runnable>> waiting = new HashMap<>();
+
+    /**
+     * Runs a session start in the background.
+     *
+     * @param camera The camera being started, used to find its USB controller
+     * @param start The blocking start work
+     * @param opened Gets, from the result of {@code start}, a stage that completes once
+     *               the device is open or the session has failed
+     * @return Future completing with the result of {@code start}
+     */
+    public static <T> CompletableFuture<T> submit(Camera camera, Callable<T> start,
+                                                  Function<? super T, ? extends CompletionStage<?>> opened) {
+        String controller = UsbBandwidthPlanner.getInstance().controllerFor(camera.getDeviceId());
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> pool.execute(() -> {
+            // Completed once, by whichever comes first: open, failure or timeout
+            CompletableFuture<Object> slot = new CompletableFuture<>();
+            slot.completeOnTimeout(null, OPEN_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                    .whenComplete((ignored, error) -> release(controller));
+            try {
+                T value = start.call();
+                opened.apply(value).whenComplete((ignored, error) -> slot.complete(null));
+                result.complete(value);
+            } catch (Throwable t) {
+                slot.complete(null);
+                result.completeExceptionally(t);
+            }
+        });
+        synchronized (SessionStarter.class) {
+            int active = running.getOrDefault(controller, 0);
+            if (active < PER_CONTROLLER) {
+                running.put(controller, active + 1);
+            } else {
+                waiting.computeIfAbsent(controller, key -> new ArrayDeque<>()).add(task);
+                return result;
+            }
+        }
+        task.run();
+        return result;
+    }
+
+    /**
+     * Frees a controller slot and hands it to the next waiting start, if any.
+     */
+    private static void release(String controller) {
+        Runnable next;
+        synchronized (SessionStarter.class) {
+            Queue<Runnable> queue = waiting.get(controller);
+            next = queue != null ? queue.poll() : null;
+            if (next == null) {
+                int active = running.getOrDefault(controller, 1) - 1;
+                if (active <= 0) {
+                    running.remove(controller);
+                    waiting.remove(controller);
+                } else {
+                    running.put(controller, active);
+                }
+            }
+        }
+        if (next != null) {
+            next.run(); // Keeps the slot
+        }
+    }
+}
@@ -13,6 +13,7 @@ public class Settings {
     private Boolean verboseOutput;
     private List<Camera> cameras;
     private Boolean hardwareEncodingEnabled;
+    private HlsSegmentType hlsSegmentType;
 
     /** Common resolution options available for cameras */
     public static final String[] RESOLUTION_OPTIONS = {
@@ -35,6 +36,7 @@ public class Settings {
         this.verboseOutput = false;
         this.cameras = new ArrayList<>();
         this.hardwareEncodingEnabled = false;
+        this.hlsSegmentType = HlsSegmentType.MPEG_TS;
     }
 
     public String getSnapshotOutputDirectory() {
@@ -108,6 +110,14 @@ public class Settings {
         this.hardwareEncodingEnabled = enabled;
     }
     
+    public HlsSegmentType getHlsSegmentType() {
+        return hlsSegmentType != null ? hlsSegmentType : HlsSegmentType.MPEG_TS;
+    }
+    
+    public void setHlsSegmentType(HlsSegmentType hlsSegmentType) {
+        this.hlsSegmentType = hlsSegmentType;
+    }
+    
     /**
      * Gets the encoder type based on current settings.
      * If hardware encoding is enabled, auto-selects best available.
@@ -45,7 +45,7 @@ public class SettingsDialogController {
         defaultResolutionComboBox.setItems(FXCollections.observableArrayList(Settings.RESOLUTION_OPTIONS));
         
         // Detect available hardware encoders in background and update status label
-        new Thread(() -> {
+        IoThreads.start("SettingsDialog-encoders", () -> {
             List<HardwareEncoderFactory.EncoderType> encoders = HardwareEncoderFactory.detectAvailableEncoders();
             HardwareEncoderFactory.EncoderType best = HardwareEncoderFactory.getBestAvailableEncoder();
             javafx.application.Platform.runLater(() -> {
@@ -58,7 +58,7 @@ public class SettingsDialogController {
                     encoderStatusLabel.setStyle("-fx-text-fill: orange; -fx-font-size: 10px;");
                 }
             });
-        }).start();
+        });
     }
 
     /**
@@ -15,6 +15,20 @@ public class SettingsManager {
     private static final String CONFIG_DIR = System.getProperty("user.home") + "/.config/simplephototool";
     private static final String CONFIG_FILE = CONFIG_DIR + "/settings.properties";
     private static final String CAMERA_FILE = CONFIG_DIR + "/cameras.txt";
+    private static final String CACHE_DIR = CONFIG_DIR + "/cache";
+
+    /**
+     * Gets the directory for derived data that can be regenerated at any time,
+     * such as probe results and pre-encoded media. The directory is created if missing.
+     *
+     * @return Path to the cache directory
+     * @throws IOException if the directory cannot be created
+     */
+    public static Path getCacheDirectory() throws IOException {
+        Path cacheDir = Paths.get(CACHE_DIR);
+        Files.createDirectories(cacheDir);
+        return cacheDir;
+    }
 
     /**
      * Loads settings from the configuration file.
@@ -40,6 +54,11 @@ public class SettingsManager {
                     if (filenamePattern != null && !filenamePattern.isEmpty()) {
                         settings.setFilenamePattern(filenamePattern);
                     }
+                    
+                    String segmentType = props.getProperty("preview.segment.type");
+                    if (segmentType != null && !segmentType.isEmpty()) {
+                        settings.setHlsSegmentType(HlsSegmentType.fromFFmpegName(segmentType));
+                    }
                 }
             }
 
@@ -87,6 +106,7 @@ public class SettingsManager {
         Properties props = new Properties();
         props.setProperty("snapshot.output.directory", settings.getSnapshotOutputDirectory());
         props.setProperty("filename.pattern", settings.getFilenamePattern());
+        props.setProperty("preview.segment.type", settings.getHlsSegmentType().getFFmpegName());
 
         try (OutputStream output = Files.newOutputStream(Paths.get(CONFIG_FILE))) {
             props.store(output, "SimplePhotoTool Settings");
@@ -0,0 +1,132 @@
+package com.example.simplephototool;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Provides the silent audio track that JavaFX requires in every HLS stream.
+ * A short silent AAC clip is encoded once and cached on disk, then looped into
+ * each stream with {@code -c:a copy} so no per-camera AAC encoder is needed.
+ * Falls back to encoding {@code anullsrc} live if the clip cannot be created.
+ */
+public class SilentAudioTrack {
+
+    private static final String TRACK_FILE_NAME = "silence_44100_mono.aac";
+    private static final String SILENT_SOURCE = "anullsrc=r=44100:cl=mono";
+
+    private static Path trackPath = null;
+    private static boolean resolved = false;
+
+    /**
+     * Gets the FFmpeg input arguments for the silent audio track.
+     *
+     * @return Input arguments to add after the video input
+     */
+    public static List<String> getInputArguments() {
+        Path track = ensureTrack();
+        if (track != null) {
+            return List.of("-stream_loop", "-1", "-i", track.toString());
+        }
+        return List.of("-f", "lavfi", "-i", SILENT_SOURCE);
+    }
+
+    /**
+     * Gets the FFmpeg audio codec arguments matching {@link #getInputArguments()}.
+     *
+     * @return Audio codec arguments for the output
+     */
+    public static List<String> getCodecArguments() {
+        if (ensureTrack() != null) {
+            return List.of("-c:a", "copy");
+        }
+        return List.of("-c:a", "aac", "-b:a", "64k");
+    }
+
+    /**
+     * Gets the FFmpeg audio codec arguments for the given HLS segment type.
+     * Copied ADTS audio must be converted to an MP4 AudioSpecificConfig for fMP4 segments.
+     *
+     * @param segmentType The HLS segment type being produced
+     * @return Audio codec arguments for the output
+     */
+    public static List<String> getCodecArguments(HlsSegmentType segmentType) {
+        if (segmentType == HlsSegmentType.FMP4 && ensureTrack() != null) {
+            return List.of("-c:a", "copy", "-bsf:a", "aac_adtstoasc");
+        }
+        return getCodecArguments();
+    }
+
+    /**
+     * Resolves the cached track, encoding it on first use.
+     *
+     * @return Path to the cached track, or null to use the live fallback
+     */
+    private static synchronized Path ensureTrack() {
+        if (resolved) {
+            return trackPath;
+        }
+        resolved = true;
+
+        try {
+            Path track = SettingsManager.getCacheDirectory().resolve(TRACK_FILE_NAME);
+            if (Files.isRegularFile(track) && Files.size(track) > 0) {
+                trackPath = track;
+            } else if (encodeTrack(track)) {
+                trackPath = track;
+                System.out.println("[SilentAudioTrack] Cached silent AAC track: " + track);
+            }
+        } catch (Exception e) {
+            System.err.println("[SilentAudioTrack] Failed to prepare silent track: " + e.getMessage());
+        }
+
+        if (trackPath == null) {
+            System.out.println("[SilentAudioTrack] Falling back to live AAC encoding of " + SILENT_SOURCE);
+        }
+        return trackPath;
+    }
+
+    /**
+     * Encodes ten seconds of silence to AAC (ADTS) and moves it into place atomically.
+     */
+    private static boolean encodeTrack(Path track) throws Exception {
+        Path partial = track.resolveSibling(TRACK_FILE_NAME + ".part");
+        ProcessBuilder pb = new ProcessBuilder(
+            "ffmpeg", "-hide_banner", "-loglevel", "error", "-y",
+            "-f", "lavfi", "-i", SILENT_SOURCE,
+            "-t", "10",
+            "-c:a", "aac", "-b:a", "64k",
+            "-f", "adts", partial.toString()
+        );
+        pb.redirectErrorStream(true);
+        Process process = FFmpegProcesses.start(pb, null, "silent-audio");
+        // The reader below only returns once ffmpeg exits, so the timeout runs on a timer
+        AtomicBoolean killed = FFmpegProcesses.killAfter(process, 10, TimeUnit.SECONDS);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.err.println("[SilentAudioTrack] " + line);
+            }
+        }
+
+        process.waitFor();
+        if (killed.get()) {
+            System.err.println("[SilentAudioTrack] Encoding the silent track timed out");
+            Files.deleteIfExists(partial);
+            return false;
+        }
+        if (process.exitValue() != 0 || !Files.isRegularFile(partial)) {
+            Files.deleteIfExists(partial);
+            return false;
+        }
+
+        Files.move(partial, track, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+}
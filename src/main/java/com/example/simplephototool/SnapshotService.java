@@ -4,13 +4,20 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -19,17 +26,105 @@ import java.util.stream.Collectors;
  */
 public class SnapshotService {
     
+    public static final String MAX_CONCURRENT_PROPERTY = "spt.snapshot.maxConcurrent";
+    public static final String PER_CONTROLLER_PROPERTY = "spt.snapshot.perController";
+    public static final String RETRIES_PROPERTY = "spt.snapshot.retries";
+    public static final String DEADLINE_PROPERTY = "spt.snapshot.deadlineMs";
+
+    private static final int MAX_CONCURRENT = Math.max(1,
+            Integer.getInteger(MAX_CONCURRENT_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    private static final int PER_CONTROLLER = Math.max(1, Integer.getInteger(PER_CONTROLLER_PROPERTY, 2));
+    private static final int RETRIES = Math.max(0, Integer.getInteger(RETRIES_PROPERTY, 2));
+    private static final long DEADLINE_MS = Math.max(1000, Long.getLong(DEADLINE_PROPERTY, 15_000));
+    private static final long RETRY_BACKOFF_MS = 250;
+
     private static final CameraStrategy strategy = CameraStrategyFactory.getStrategy();
+    private static final Stats stats = new Stats();
+    // Shared by all batches; captures mostly wait on ffmpeg
+    private static final ExecutorService executor = IoThreads.newExecutor("SnapshotService");
+
+    // Admission slots, shared by overlapping batches. A lock rather than a monitor,
+    // so waiting virtual threads do not pin their carriers.
+    private static final ReentrantLock admission = new ReentrantLock();
+    private static final Condition slotFreed = admission.newCondition();
+    private static int running;
+    private static final Map<String, Integer> runningPerController = new HashMap<>();
+    
+    static {
+        JmxRegistry.register("SnapshotService", null, stats);
+    }
+    
+    /**
+     * Counters exposed through JMX. Updated from capture threads without locking.
+     */
+    private static class Stats implements SnapshotServiceMXBean {
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong retried = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long lastBatchDurationMillis = -1;
+        
+        @Override
+        public long getBatches() {
+            return batches.get();
+        }
+        
+        @Override
+        public long getSnapshotsSucceeded() {
+            return succeeded.get();
+        }
+        
+        @Override
+        public long getSnapshotsFailed() {
+            return failed.get();
+        }
+        
+        @Override
+        public long getSnapshotsRetried() {
+            return retried.get();
+        }
+        
+        @Override
+        public int getSnapshotsInFlight() {
+            return inFlight.get();
+        }
+        
+        @Override
+        public long getLastBatchDurationMillis() {
+            return lastBatchDurationMillis;
+        }
+    }
+    
+    /**
+     * Gets the service-wide snapshot counters.
+     *
+     * @return Live statistics view
+     */
+    public static SnapshotServiceMXBean getStatistics() {
+        return stats;
+    }
     
     /**
-     * Captures snapshots from all active cameras in parallel.
-     * Each camera runs on its own thread for faster overall capture.
+     * Captures snapshots from all active cameras.
+     * Captures run on a shared executor, but are admitted a few at a time: at most
+     * {@value #PER_CONTROLLER_PROPERTY} per USB controller, so the cameras on one hub
+     * do not all negotiate bandwidth at once, and at most {@value #MAX_CONCURRENT_PROPERTY}
+     * overall, one per CPU by default, since each ffmpeg decodes and encodes a frame.
+     * Captures that fail because the device is busy or the bus is out of bandwidth
+     * are retried after a short backoff. Whatever has not finished by the batch
+     * deadline ({@value #DEADLINE_PROPERTY}) is abandoned and counted as failed.
      * 
      * @param cameras List of all cameras
      * @param settings Application settings containing output directory and filename pattern
      * @return Number of successful snapshots
      */
     public static int captureSnapshots(List<Camera> cameras, Settings settings) {
+        long triggerNanos = System.nanoTime();
+        long deadlineNanos = triggerNanos + TimeUnit.MILLISECONDS.toNanos(DEADLINE_MS);
+        FlightEvents.SnapshotTrigger event = new FlightEvents.SnapshotTrigger();
+        event.begin();
+        
         // Filter only active cameras
         List<Camera> activeCameras = cameras.stream()
                 .filter(Camera::isActive)
@@ -51,44 +146,136 @@ public class SnapshotService {
             return 0;
         }
 
-        // Create a thread pool with one thread per camera for parallel capture
-        ExecutorService executor = Executors.newFixedThreadPool(activeCameras.size());
+        stats.batches.incrementAndGet();
         AtomicInteger successCount = new AtomicInteger(0);
         
-        // Submit all camera capture tasks in parallel
+        // Submit in bus-interleaved order, so every hub gets its first slots early
         List<CompletableFuture<Void>> futures = new ArrayList<>();
-        for (Camera camera : activeCameras) {
+        for (Camera camera : interleaveByController(activeCameras)) {
             CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                boolean success = false;
                 try {
-                    if (strategy.captureSnapshot(camera, settings)) {
+                    success = capture(camera, settings, triggerNanos, deadlineNanos);
+                    if (success) {
                         successCount.incrementAndGet();
                     }
                 } catch (Exception e) {
                     System.err.println("Error capturing from camera " + camera.getName() + ": " + e.getMessage());
                     e.printStackTrace();
+                } finally {
+                    (success ? stats.succeeded : stats.failed).incrementAndGet();
                 }
             }, executor);
             futures.add(future);
         }
         
-        // Wait for all captures to complete
+        // Wait for all captures to complete; each gives up at the deadline
         try {
             CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
         } catch (Exception e) {
             System.err.println("Error waiting for snapshot captures: " + e.getMessage());
-        } finally {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
         }
         
+        stats.lastBatchDurationMillis = (System.nanoTime() - triggerNanos) / 1_000_000;
+        event.end();
+        if (event.shouldCommit()) {
+            event.cameras = activeCameras.size();
+            event.succeeded = successCount.get();
+            event.commit();
+        }
         System.out.println("Captured " + successCount.get() + " of " + activeCameras.size() + " snapshots.");
         return successCount.get();
     }
+
+    /**
+     * Captures one camera: waits for admission, then attempts the capture, retrying
+     * while the device reports busy and time remains.
+     */
+    private static boolean capture(Camera camera, Settings settings, long triggerNanos, long deadlineNanos)
+            throws InterruptedException {
+        String controller = UsbBandwidthPlanner.getInstance().controllerFor(camera.getDeviceId());
+        for (int attempt = 0; attempt <= RETRIES; attempt++) {
+            if (attempt > 0) {
+                stats.retried.incrementAndGet();
+                // Back off so cameras that have not had a turn go first
+                long backoffNanos = TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MS * attempt);
+                if (System.nanoTime() + backoffNanos >= deadlineNanos) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.sleep(backoffNanos);
+            }
+            if (!admit(controller, deadlineNanos)) {
+                System.err.println("Snapshot from " + camera.getName() + " was not started before the deadline");
+                return false;
+            }
+            CameraStrategy.SnapshotResult result;
+            stats.inFlight.incrementAndGet();
+            try {
+                result = strategy.attemptSnapshot(camera, settings, triggerNanos, deadlineNanos);
+            } finally {
+                stats.inFlight.decrementAndGet();
+                release(controller);
+            }
+            if (result != CameraStrategy.SnapshotResult.DEVICE_BUSY) {
+                return result == CameraStrategy.SnapshotResult.SAVED;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for a free slot on the controller and overall.
+     *
+     * @return false if the deadline passed first
+     */
+    private static boolean admit(String controller, long deadlineNanos) throws InterruptedException {
+        admission.lock();
+        try {
+            while (running >= MAX_CONCURRENT || runningPerController.getOrDefault(controller, 0) >= PER_CONTROLLER) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                slotFreed.awaitNanos(remaining);
+            }
+            running++;
+            runningPerController.merge(controller, 1, Integer::sum);
+            return true;
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    private static void release(String controller) {
+        admission.lock();
+        try {
+            running--;
+            runningPerController.computeIfPresent(controller, (key, count) -> count > 1 ? count - 1 : null);
+            slotFreed.signalAll();
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    /**
+     * Orders cameras round-robin across controllers: the first camera of each
+     * controller, then the second of each, and so on.
+     */
+    static List<Camera> interleaveByController(List<Camera> cameras) {
+        Map<String, Deque<Camera>> byController = new LinkedHashMap<>();
+        for (Camera camera : cameras) {
+            byController.computeIfAbsent(UsbBandwidthPlanner.getInstance().controllerFor(camera.getDeviceId()),
+                    key -> new ArrayDeque<>()).add(camera);
+        }
+        List<Camera> ordered = new ArrayList<>(cameras.size());
+        while (ordered.size() < cameras.size()) {
+            for (Deque<Camera> queue : byController.values()) {
+                Camera next = queue.poll();
+                if (next != null) {
+                    ordered.add(next);
+                }
+            }
+        }
+        return ordered;
+    }
 }
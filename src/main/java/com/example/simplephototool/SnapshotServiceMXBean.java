@@ -0,0 +1,37 @@
+package com.example.simplephototool;
+
+/**
+ * Aggregate management view of {@link SnapshotService}.
+ */
+public interface SnapshotServiceMXBean {
+
+    /**
+     * @return Snapshot batches started since startup
+     */
+    long getBatches();
+
+    /**
+     * @return Single-camera captures that succeeded
+     */
+    long getSnapshotsSucceeded();
+
+    /**
+     * @return Single-camera captures that failed
+     */
+    long getSnapshotsFailed();
+
+    /**
+     * @return Captures retried because the device was busy or out of USB bandwidth
+     */
+    long getSnapshotsRetried();
+
+    /**
+     * @return Captures currently running
+     */
+    int getSnapshotsInFlight();
+
+    /**
+     * @return Duration of the last completed batch in milliseconds, or -1 if none
+     */
+    long getLastBatchDurationMillis();
+}
@@ -0,0 +1,292 @@
+package com.example.simplephototool;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Camera strategy whose devices are FFmpeg lavfi test sources or replayed recordings
+ * instead of real cameras. Used for benchmarks and load tests on machines without
+ * cameras; select it with {@code -Dspt.camera.strategy=synthetic}.
+ * <p>
+ * Test source device IDs have the form {@code lavfi:<source>:<index>}. The number of
+ * devices, the sources they cycle through and the generated frame rate are read from
+ * {@value #COUNT_PROPERTY}, {@value #SOURCES_PROPERTY} and {@value #FPS_PROPERTY}.
+ * Frame size follows the camera's resolution like a real camera, falling back to
+ * 640x480 like {@link PreviewTile}, so raw frames always match the tile's buffer.
+ * <p>
+ * Replay device IDs have the form {@code replay:<file>}. Recordings made with
+ * {@link ReplayRecorder} and listed in {@value #REPLAY_FILES_PROPERTY} loop forever,
+ * in real time unless {@value #REPLAY_REALTIME_PROPERTY} is false, in which case
+ * ffmpeg reads them as fast as it can.
+ */
+public class SyntheticCameraStrategy implements CameraStrategy {
+
+    public static final String COUNT_PROPERTY = "spt.synthetic.count";
+    public static final String SOURCES_PROPERTY = "spt.synthetic.sources";
+    public static final String FPS_PROPERTY = "spt.synthetic.fps";
+    public static final String REPLAY_FILES_PROPERTY = "spt.replay.files";
+    public static final String REPLAY_REALTIME_PROPERTY = "spt.replay.realtime";
+
+    /** Prefix of synthetic device IDs. */
+    public static final String DEVICE_PREFIX = "lavfi:";
+    /** Prefix of replayed recording device IDs. */
+    public static final String REPLAY_PREFIX = "replay:";
+
+    private static final List<String> SUPPORTED_SOURCES = List.of("testsrc2", "smptebars", "mandelbrot");
+
+    private static final List<String> ffmpegPrefix = List.of("ffmpeg",
+            "-hide_banner");
+
+    private final int count;
+    private final List<String> sources;
+    private final int fps;
+    private final List<String> replayFiles;
+    private final boolean replayRealtime;
+
+    /**
+     * Creates a strategy configured from system properties.
+     */
+    public SyntheticCameraStrategy() {
+        this(Integer.getInteger(COUNT_PROPERTY, 4),
+             parseSources(System.getProperty(SOURCES_PROPERTY, String.join(",", SUPPORTED_SOURCES))),
+             Integer.getInteger(FPS_PROPERTY, 30),
+             parseReplayFiles(System.getProperty(REPLAY_FILES_PROPERTY, "")),
+             Boolean.parseBoolean(System.getProperty(REPLAY_REALTIME_PROPERTY, "true")));
+    }
+
+    /**
+     * Creates a strategy with explicit configuration.
+     *
+     * @param count Number of devices reported by {@link #detectDevices()}
+     * @param sources lavfi sources assigned to devices in turn
+     * @param fps Frame rate the sources generate
+     * @param replayFiles Recordings reported as replay devices after the test sources
+     * @param replayRealtime true to replay at recorded speed, false to read as fast as possible
+     */
+    public SyntheticCameraStrategy(int count, List<String> sources, int fps,
+                                   List<String> replayFiles, boolean replayRealtime) {
+        this.count = Math.max(0, count);
+        this.sources = sources.isEmpty() ? List.of(SUPPORTED_SOURCES.get(0)) : List.copyOf(sources);
+        this.fps = Math.max(1, fps);
+        this.replayFiles = List.copyOf(replayFiles);
+        this.replayRealtime = replayRealtime;
+    }
+
+    private static List<String> parseReplayFiles(String value) {
+        List<String> result = new ArrayList<>();
+        for (String file : value.split(File.pathSeparator)) {
+            if (!file.isBlank()) {
+                result.add(file.trim());
+            }
+        }
+        return result;
+    }
+
+    private static List<String> parseSources(String value) {
+        List<String> result = new ArrayList<>();
+        for (String source : value.split(",")) {
+            String name = source.trim();
+            if (SUPPORTED_SOURCES.contains(name)) {
+                result.add(name);
+            } else if (!name.isEmpty()) {
+                System.err.println("[SyntheticCameraStrategy] Ignoring unsupported source: " + name);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<CameraDevice> detectDevices() {
+        List<CameraDevice> devices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String source = sources.get(i % sources.size());
+            devices.add(new CameraDevice(DEVICE_PREFIX + source + ":" + i, "Synthetic " + source + " " + i));
+        }
+        for (String file : replayFiles) {
+            if (new File(file).isFile()) {
+                devices.add(new CameraDevice(REPLAY_PREFIX + file, "Replay " + new File(file).getName()));
+            } else {
+                System.err.println("[SyntheticCameraStrategy] Replay file not found: " + file);
+            }
+        }
+        return devices;
+    }
+
+    /**
+     * Gets the lavfi source for a device ID. Devices that are not synthetic,
+     * such as cameras configured on another strategy, fall back to the first source.
+     */
+    private String sourceFor(String deviceId) {
+        if (deviceId != null && deviceId.startsWith(DEVICE_PREFIX)) {
+            String rest = deviceId.substring(DEVICE_PREFIX.length());
+            int end = rest.indexOf(':');
+            String source = end >= 0 ? rest.substring(0, end) : rest;
+            if (SUPPORTED_SOURCES.contains(source)) {
+                return source;
+            }
+        }
+        return sources.get(0);
+    }
+
+    /**
+     * Builds the lavfi source graph for a camera, e.g. {@code testsrc2=size=1280x720:rate=30}.
+     */
+    private String sourceGraph(Camera camera, Settings settings) {
+        int[] size = frameSize(camera, settings);
+        return sourceFor(camera.getDeviceId()) + "=size=" + size[0] + "x" + size[1] + ":rate=" + fps;
+    }
+
+    /**
+     * Gets the frame size for a camera: its own resolution, or 640x480 as the preview tile assumes.
+     */
+    private int[] frameSize(Camera camera, Settings settings) {
+        int[] dimensions = getResolution(camera, settings);
+        return (dimensions != null) ? dimensions : new int[]{640, 480};
+    }
+
+    /**
+     * Gets the path of a replay device's recording, or null for test source devices.
+     */
+    private static String replayFileFor(String deviceId) {
+        if (deviceId != null && deviceId.startsWith(REPLAY_PREFIX)) {
+            return deviceId.substring(REPLAY_PREFIX.length());
+        }
+        return null;
+    }
+
+    /**
+     * Builds the input arguments for a camera: a looped recording for replay devices,
+     * otherwise a lavfi test source.
+     *
+     * @param paced true to deliver frames in real time, like a camera
+     * @param loop true to loop a recording forever (not needed for single frames)
+     */
+    private List<String> inputArguments(Camera camera, Settings settings, boolean paced, boolean loop) {
+        List<String> args = new ArrayList<>();
+        String replayFile = replayFileFor(camera.getDeviceId());
+        if (replayFile != null) {
+            if (paced && replayRealtime) {
+                args.add("-re");
+            }
+            if (loop) {
+                args.add("-stream_loop");
+                args.add("-1");
+            }
+            args.add("-i");
+            args.add(replayFile);
+        } else {
+            // lavfi generates as fast as it can; pace it like a camera
+            if (paced) {
+                args.add("-re");
+            }
+            args.add("-f");
+            args.add("lavfi");
+            args.add("-i");
+            args.add(sourceGraph(camera, settings));
+        }
+        return args;
+    }
+
+    @Override
+    public ProcessBuilder buildFFmpegCommand(Camera camera, Settings settings) {
+        List<String> command = new ArrayList<>(ffmpegPrefix);
+        command.addAll(inputArguments(camera, settings, true, true));
+        if (replayFileFor(camera.getDeviceId()) != null) {
+            // PreviewTile sizes its frame buffer from the camera resolution, so scale the recording to match
+            int[] size = frameSize(camera, settings);
+            command.addAll(getRawPreviewOutputArguments(size[0], size[1]));
+        } else {
+            command.addAll(getRawPreviewOutputArguments());
+        }
+        // stdout carries the frames, so progress goes to stderr
+        FFmpegProgress.addArguments(command, 2);
+
+        return new ProcessBuilder(command);
+    }
+
+    @Override
+    public ProcessBuilder buildSnapshotCommand(Camera camera, Settings settings, String outputPath) {
+        List<String> command = new ArrayList<>(ffmpegPrefix);
+        command.addAll(inputArguments(camera, settings, false, false));
+        if (replayFileFor(camera.getDeviceId()) != null) {
+            // Scale on output like the platform strategies do for real cameras
+            int[] size = frameSize(camera, settings);
+            command.add("-vf");
+            command.add("scale=" + size[0] + ":" + size[1]);
+        }
+        command.add("-frames:v");
+        command.add("1");
+        command.add("-y"); // Overwrite output file
+        command.add(outputPath);
+
+        // Progress on stderr feeds the snapshot metrics
+        FFmpegProgress.addArguments(command, 2);
+
+        return new ProcessBuilder(command);
+    }
+
+    @Override
+    public ProcessBuilder buildRecordCommand(Camera camera, Settings settings, String outputPath, int seconds) {
+        List<String> command = new ArrayList<>(ffmpegPrefix);
+        command.addAll(inputArguments(camera, settings, false, false));
+        command.add("-t");
+        command.add(String.valueOf(seconds));
+        command.add("-c:v");
+        // Recordings can be copied; lavfi frames have to be stored as raw video
+        command.add(replayFileFor(camera.getDeviceId()) != null ? "copy" : "rawvideo");
+        command.add("-y");
+        command.add(outputPath);
+
+        return new ProcessBuilder(command);
+    }
+
+    @Override
+    public String getPlatformName() {
+        return "Synthetic";
+    }
+
+    @Override
+    public ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath,
+                                                       HlsSegmentType segmentType) {
+        // Same pipeline as LinuxCameraStrategy with the v4l2 input swapped for lavfi or a recording
+        List<String> command = new ArrayList<>();
+        command.add("ffmpeg");
+        command.add("-hide_banner");
+        command.add("-y");
+        // Video input from the test source or recording, paced to real time
+        command.addAll(inputArguments(camera, settings, true, true));
+        // Silent audio input (required by JavaFX HLS), pre-encoded and looped
+        command.addAll(SilentAudioTrack.getInputArguments());
+
+        HardwareEncoderFactory.EncoderType encoderType = settings.getEncoderType();
+        System.out.println("[SyntheticCameraStrategy] Using encoder: " + encoderType.getDisplayName());
+        command.addAll(HardwareEncoderFactory.getEncoderArguments(encoderType));
+
+        // GOP size for low latency
+        command.add("-g");
+        command.add("15");
+        // Audio - AAC (required by JavaFX HLS), copied from the cached track when available
+        command.addAll(SilentAudioTrack.getCodecArguments(segmentType));
+        command.add("-shortest");
+        // HLS output settings
+        command.add("-f");
+        command.add("hls");
+        command.add("-hls_time");
+        command.add("1");
+        command.add("-hls_list_size");
+        command.add("3");
+        String hlsFlags = FFmpegCapabilities.get().hlsFlags("delete_segments", "append_list");
+        if (!hlsFlags.isEmpty()) {
+            command.add("-hls_flags");
+            command.add(hlsFlags);
+        }
+        command.addAll(segmentType.getMuxerArguments(hlsPath, "/"));
+        command.add(hlsPath + "/stream.m3u8");
+
+        // Progress reports on stdout, which HLS output leaves free
+        FFmpegProgress.addArguments(command, 1);
+
+        return new ProcessBuilder(command);
+    }
+}
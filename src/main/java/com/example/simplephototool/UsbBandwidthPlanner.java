@@ -0,0 +1,338 @@
+package com.example.simplephototool;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plans capture modes so that the cameras sharing a USB bus fit its isochronous
+ * bandwidth. The bus of each {@code /dev/video*} node and its speed are read from
+ * sysfs; the bandwidth of each mode is estimated by {@link V4l2Capabilities}.
+ * <p>
+ * Each bus keeps {@value #SNAPSHOT_RESERVE_PROPERTY} percent (25 by default) of its
+ * bandwidth for snapshots, and the rest is shared equally by the cameras attached to
+ * it, counted as the USB devices on the bus that have video nodes in sysfs. A preview that does not fit its share is degraded: first to a compressed
+ * format, then to smaller frame sizes, then to lower frame rates. Snapshots and
+ * recordings keep the requested size and only switch format, so previews give way
+ * before stills do. A camera that cannot fit even at its smallest mode is logged.
+ * <p>
+ * {@value #CAMERAS_PER_BUS_PROPERTY} plans for a fixed number of cameras per bus
+ * instead of the ones attached, e.g. to leave room for cameras plugged in later.
+ * {@value #SYSFS_PROPERTY} moves the sysfs root, which {@link V4l2Capabilities}
+ * also reads device names from.
+ */
+public class UsbBandwidthPlanner {
+
+    public static final String CAMERAS_PER_BUS_PROPERTY = "spt.usb.camerasPerBus";
+    public static final String SNAPSHOT_RESERVE_PROPERTY = "spt.usb.snapshotReserve";
+    public static final String SYSFS_PROPERTY = "spt.sysfs";
+
+    /**
+     * What a capture is for. Previews may be degraded to fit; captures may not.
+     */
+    public enum Use {
+        PREVIEW,
+        CAPTURE
+    }
+
+    /**
+     * A USB bus, identified by its root hub.
+     *
+     * @param controller Root hub name, e.g. usb1
+     * @param speedMbps Root hub speed in Mbit/s: 12, 480, 5000 or more
+     * @param capacityBytesPerSecond Bandwidth available to cameras on the bus
+     */
+    public record Bus(String controller, int speedMbps, long capacityBytesPerSecond) {
+    }
+
+    /**
+     * The mode planned for one capture.
+     *
+     * @param mode The capture mode
+     * @param bus The camera's bus, or null if it is not a USB device
+     * @param budgetBytesPerSecond Bandwidth the capture was planned against
+     * @param degraded true if the preview was reduced below the request to fit
+     */
+    public record Plan(V4l2Capabilities.InputMode mode, Bus bus, long budgetBytesPerSecond, boolean degraded) {
+
+        /**
+         * Tells whether the mode's estimated bandwidth fits the budget.
+         *
+         * @return false if the mode is known to exceed it
+         */
+        public boolean fits() {
+            return mode.bytesPerSecond() < 0 || mode.bytesPerSecond() <= budgetBytesPerSecond;
+        }
+
+        /**
+         * Describes the plan for logs, e.g. "mjpeg 640x360@15 ~0.7 MB/s on usb1 (budget 5.0 MB/s, degraded)".
+         *
+         * @return Short description
+         */
+        public String describe() {
+            if (bus == null) {
+                return mode.describe();
+            }
+            return mode.describe() + " on " + bus.controller()
+                    + String.format(" (budget %.1f MB/s", budgetBytesPerSecond / 1e6)
+                    + (degraded ? ", degraded)" : ")");
+        }
+    }
+
+    /** Frame rates a preview steps down to when smaller sizes do not fit. */
+    private static final int[] PREVIEW_FPS_STEPS = {15, 10, 5};
+
+    // Cached for nodes that are not on USB
+    private static final Bus NONE = new Bus("", 0, Long.MAX_VALUE);
+
+    private static final UsbBandwidthPlanner instance =
+            new UsbBandwidthPlanner(Path.of(System.getProperty(SYSFS_PROPERTY, "/sys")));
+
+    static {
+        DeviceInventory.getInstance().addListener((added, removed) -> {
+            for (CameraDevice device : removed) {
+                instance.invalidate(device.getDeviceId());
+            }
+            for (CameraDevice device : added) {
+                instance.invalidate(device.getDeviceId());
+            }
+        });
+    }
+
+    private final Path sysfs;
+    private final int camerasPerBus = Integer.getInteger(CAMERAS_PER_BUS_PROPERTY, 0);
+    private final int snapshotReservePercent =
+            Math.max(0, Math.min(90, Integer.getInteger(SNAPSHOT_RESERVE_PROPERTY, 25)));
+    private final Map<String, Bus> buses = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a planner reading the given sysfs tree.
+     *
+     * @param sysfs sysfs mount point, normally /sys; tests pass a fake tree
+     */
+    UsbBandwidthPlanner(Path sysfs) {
+        this.sysfs = sysfs;
+    }
+
+    /**
+     * Gets the planner for the system's sysfs.
+     *
+     * @return The planner instance
+     */
+    public static UsbBandwidthPlanner getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets the sysfs root this planner reads.
+     *
+     * @return sysfs mount point
+     */
+    Path getSysfs() {
+        return sysfs;
+    }
+
+    /**
+     * Plans the capture mode of a camera against its share of its bus.
+     *
+     * @param deviceId The device node, e.g. /dev/video0
+     * @param capabilities The device's probed formats
+     * @param width Requested width
+     * @param height Requested height
+     * @param fps Requested frame rate
+     * @param use Whether the capture may be degraded
+     * @param preferred auto, raw, mjpeg or h264, as for {@link V4l2Capabilities#selectInputMode}
+     * @return The plan
+     */
+    public Plan plan(String deviceId, V4l2Capabilities capabilities, int width, int height, int fps,
+                     Use use, String preferred) {
+        Bus bus = busFor(deviceId);
+        if (bus == null) {
+            return new Plan(capabilities.selectInputMode(width, height, fps, Long.MAX_VALUE, preferred), null,
+                    Long.MAX_VALUE, false);
+        }
+        int cameras = camerasOn(bus);
+        long budget;
+        if (use == Use.CAPTURE) {
+            budget = bus.capacityBytesPerSecond() / cameras;
+        } else {
+            budget = bus.capacityBytesPerSecond() * (100 - snapshotReservePercent) / 100 / cameras;
+        }
+
+        V4l2Capabilities.InputMode requested = capabilities.selectInputMode(width, height, fps, budget, preferred);
+        Plan plan = new Plan(requested, bus, budget, false);
+        if (use == Use.PREVIEW && !plan.fits()) {
+            plan = degrade(capabilities, requested, budget, preferred, bus);
+        }
+        if (!plan.fits()) {
+            System.err.println("[UsbBandwidthPlanner] " + deviceId + " " + use.name().toLowerCase()
+                    + " needs more than its share of " + bus.controller() + " (" + cameras + " camera(s)): "
+                    + plan.describe() + "; expect dropped frames or 'No space left on device'");
+        }
+        return plan;
+    }
+
+    /**
+     * Steps a preview down through smaller sizes, then lower frame rates, until it
+     * fits. Returns the smallest mode if nothing fits.
+     */
+    private static Plan degrade(V4l2Capabilities capabilities, V4l2Capabilities.InputMode requested,
+                                long budget, String preferred, Bus bus) {
+        List<int[]> sizes = smallerSizes(capabilities, requested.width(), requested.height());
+        V4l2Capabilities.InputMode smallest = requested;
+        List<Integer> rates = new ArrayList<>();
+        rates.add(requested.fps());
+        for (int fps : PREVIEW_FPS_STEPS) {
+            if (fps < requested.fps()) {
+                rates.add(fps);
+            }
+        }
+        for (int fps : rates) {
+            for (int[] size : sizes) {
+                V4l2Capabilities.InputMode mode = capabilities.selectInputMode(size[0], size[1], fps, budget, preferred);
+                if (mode.bytesPerSecond() <= budget) {
+                    return new Plan(mode, bus, budget, true);
+                }
+                if (mode.bytesPerSecond() < smallest.bytesPerSecond()) {
+                    smallest = mode;
+                }
+            }
+        }
+        return new Plan(smallest, bus, budget, !smallest.equals(requested));
+    }
+
+    /**
+     * Lists the discrete sizes of any format no larger than the given one, largest first,
+     * starting with the given size itself.
+     */
+    private static List<int[]> smallerSizes(V4l2Capabilities capabilities, int width, int height) {
+        long area = (long) width * height;
+        Set<String> seen = new LinkedHashSet<>();
+        List<int[]> sizes = new ArrayList<>();
+        sizes.add(new int[]{width, height});
+        seen.add(width + "x" + height);
+        List<int[]> offered = new ArrayList<>();
+        for (V4l2Capabilities.Format format : capabilities.getFormats()) {
+            offered.addAll(format.sizes());
+        }
+        offered.sort(Comparator.comparingLong((int[] size) -> (long) size[0] * size[1]).reversed());
+        for (int[] size : offered) {
+            if ((long) size[0] * size[1] < area && seen.add(size[0] + "x" + size[1])) {
+                sizes.add(size);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Counts the cameras on a bus: USB devices below its root hub with at least one
+     * video node. A UVC camera's capture and metadata nodes count once.
+     */
+    int camerasOn(Bus bus) {
+        if (camerasPerBus > 0) {
+            return camerasPerBus;
+        }
+        Set<String> cameras = new LinkedHashSet<>();
+        try (DirectoryStream<Path> nodes = Files.newDirectoryStream(sysfs.resolve("class/video4linux"), "video*")) {
+            for (Path node : nodes) {
+                String usbDevice = null;
+                boolean onBus = false;
+                // .../usb1/1-2/1-2.3/1-2.3:1.0: the last hub port segment is the camera
+                for (Path segment : node.resolve("device").toRealPath()) {
+                    String name = segment.toString();
+                    if (name.equals(bus.controller())) {
+                        onBus = true;
+                    } else if (onBus && name.matches("\\d+-[\\d.]+")) {
+                        usbDevice = name;
+                    }
+                }
+                if (usbDevice != null) {
+                    cameras.add(usbDevice);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // sysfs is not available; plan as if the camera were alone
+        }
+        return Math.max(1, cameras.size());
+    }
+
+    /**
+     * Gets the name of the USB controller a camera is attached to, e.g. "usb1",
+     * for grouping work per bus. Only Linux exposes this (through sysfs); elsewhere
+     * each device is its own group.
+     *
+     * @param deviceId The camera's device ID
+     * @return Controller name, or the device ID when it is not on a known USB bus
+     */
+    public String controllerFor(String deviceId) {
+        Bus bus = busFor(deviceId);
+        return bus != null ? bus.controller() : String.valueOf(deviceId);
+    }
+
+    /**
+     * Gets the USB bus a video node is attached to.
+     *
+     * @param deviceId The device node, e.g. /dev/video0
+     * @return The bus, or null if the node is not a USB device or sysfs is unavailable
+     */
+    public Bus busFor(String deviceId) {
+        Bus bus = buses.computeIfAbsent(String.valueOf(deviceId), this::resolveBus);
+        return bus == NONE ? null : bus;
+    }
+
+    /**
+     * Forgets the bus of a node, so it is read again, e.g. after a camera was replugged.
+     *
+     * @param deviceId The device node
+     */
+    public void invalidate(String deviceId) {
+        buses.remove(String.valueOf(deviceId));
+    }
+
+    private Bus resolveBus(String deviceId) {
+        if (!deviceId.startsWith("/dev/video")) {
+            return NONE;
+        }
+        try {
+            // class/video4linux/video0/device -> .../usb1/1-2/1-2:1.0
+            Path device = sysfs.resolve("class/video4linux")
+                    .resolve(Path.of(deviceId).getFileName().toString()).resolve("device").toRealPath();
+            for (Path segment : device) {
+                String name = segment.toString();
+                if (name.matches("usb\\d+")) {
+                    int speed = readSpeed(sysfs.resolve("bus/usb/devices").resolve(name).resolve("speed"));
+                    return new Bus(name, speed, capacity(speed));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not a USB device, or sysfs is not available
+        }
+        return NONE;
+    }
+
+    private static int readSpeed(Path file) {
+        try {
+            // "480", "5000", or "1.5" for low speed
+            return (int) Double.parseDouble(Files.readString(file).trim());
+        } catch (IOException | RuntimeException e) {
+            return 480; // Assume high speed, what nearly all webcams use
+        }
+    }
+
+    /**
+     * Estimates the bandwidth cameras can use on a bus: USB reserves at most 80% of
+     * a frame for periodic transfers, and packet overhead takes more, so about two
+     * thirds of the signalling rate, e.g. 40 MB/s on USB 2.0.
+     */
+    static long capacity(int speedMbps) {
+        return Math.max(1, speedMbps) * 1_000_000L / 8 * 2 / 3;
+    }
+}
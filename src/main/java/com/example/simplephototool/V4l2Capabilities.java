@@ -0,0 +1,481 @@
+package com.example.simplephototool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What a V4L2 device node can capture: its pixel formats and the frame sizes of each,
+ * probed once with {@code ffmpeg -f v4l2 -list_formats all} and cached per node.
+ * The device name comes from sysfs. Cache entries are dropped when
+ * {@link DeviceInventory} reports the node added or removed, so a camera plugged
+ * into a freed node is probed again.
+ * <p>
+ * Nodes ffmpeg reports as not capture devices, such as the metadata nodes UVC
+ * cameras expose next to their capture node, are skipped. When the probe fails for
+ * any other reason (ffmpeg missing, permission denied, device busy, timeout) the
+ * capabilities are unknown, are not cached, and callers fall back to the requested size.
+ * ffmpeg's listing does not include frame intervals, so frame rates are not probed.
+ * <p>
+ * {@link #selectInputMode} picks the format to capture in: uncompressed when it fits
+ * the camera's share of USB bandwidth, otherwise MJPEG or H.264, which need a
+ * fraction of it. Bandwidth figures are estimates; compressed frame sizes depend on
+ * the scene and the camera.
+ */
+public final class V4l2Capabilities {
+
+    /**
+     * A pixel format and the frame sizes the device offers for it.
+     *
+     * @param name ffmpeg's name for the format, e.g. yuyv422 or mjpeg
+     * @param compressed true for compressed formats such as MJPEG
+     * @param sizes Discrete frame sizes as [width, height]
+     * @param range Continuous size range for stepwise formats, or null
+     */
+    public record Format(String name, boolean compressed, List<int[]> sizes, SizeRange range) {
+    }
+
+    /**
+     * Frame sizes of a stepwise format: {min-max, step} in each dimension.
+     */
+    public record SizeRange(int minWidth, int maxWidth, int widthStep, int minHeight, int maxHeight, int heightStep) {
+
+        int[] clamp(int width, int height) {
+            return new int[]{clampDimension(width, minWidth, maxWidth, widthStep),
+                    clampDimension(height, minHeight, maxHeight, heightStep)};
+        }
+
+        private static int clampDimension(int value, int min, int max, int step) {
+            int clamped = Math.max(min, Math.min(max, value));
+            int steps = (clamped - min + Math.max(1, step) - 1) / Math.max(1, step);
+            return Math.min(max, min + steps * Math.max(1, step));
+        }
+    }
+
+    /**
+     * A capture mode chosen for a device.
+     *
+     * @param format ffmpeg input format name, or null to leave the device's default
+     * @param compressed true for MJPEG or H.264
+     * @param width Frame width
+     * @param height Frame height
+     * @param fps Requested frame rate
+     * @param bytesPerSecond Estimated USB bandwidth, or -1 if unknown
+     */
+    public record InputMode(String format, boolean compressed, int width, int height, int fps, long bytesPerSecond) {
+
+        /**
+         * Gets the ffmpeg v4l2 input options for this mode.
+         *
+         * @param withFrameRate true to request the frame rate from the device as well
+         * @return Options to place before {@code -i}
+         */
+        public List<String> arguments(boolean withFrameRate) {
+            List<String> args = new ArrayList<>();
+            if (format != null) {
+                args.add("-input_format");
+                args.add(format);
+            }
+            args.add("-video_size");
+            args.add(width + "x" + height);
+            if (withFrameRate) {
+                args.add("-framerate");
+                args.add(String.valueOf(fps));
+            }
+            return args;
+        }
+
+        /**
+         * Describes the mode for logs, e.g. "mjpeg 1280x720@15 ~4.1 MB/s".
+         *
+         * @return Short description
+         */
+        public String describe() {
+            return (format != null ? format : "default") + " " + width + "x" + height + "@" + fps
+                    + (bytesPerSecond >= 0 ? String.format(" ~%.1f MB/s", bytesPerSecond / 1e6) : "");
+        }
+    }
+
+    /** Compressed formats in order of preference: MJPEG frames decode independently and cheaply. */
+    private static final List<String> COMPRESSED_PREFERENCE = List.of("mjpeg", "h264");
+
+    private static final long PROBE_TIMEOUT_MS = 5000;
+    // What ffmpeg logs for nodes without VIDEO_CAPTURE, e.g. UVC metadata nodes
+    private static final String NOT_CAPTURE = "Not a video capture device";
+
+    private static final V4l2Capabilities UNKNOWN = new V4l2Capabilities(false, null, List.of());
+
+    // "[video4linux2,v4l2 @ 0x55d] Raw       :     yuyv422 :           YUYV 4:2:2 : 640x480 1280x720"
+    private static final Pattern FORMAT_LINE =
+            Pattern.compile("\\]\\s*(Raw|Compressed)\\s*:\\s*(\\S+)\\s*:\\s*(.*?)\\s*:\\s*(.*)$");
+    private static final Pattern SIZE = Pattern.compile("(\\d+)x(\\d+)");
+    private static final Pattern STEPWISE =
+            Pattern.compile("\\{(\\d+)-(\\d+),\\s*(\\d+)\\}x\\{(\\d+)-(\\d+),\\s*(\\d+)\\}");
+
+    private static final Map<String, V4l2Capabilities> cache = new ConcurrentHashMap<>();
+
+    static {
+        DeviceInventory.getInstance().addListener((added, removed) -> {
+            for (CameraDevice device : removed) {
+                invalidate(device.getDeviceId());
+            }
+            for (CameraDevice device : added) {
+                invalidate(device.getDeviceId());
+            }
+        });
+    }
+
+    private final boolean known;
+    private final String name;
+    private final List<Format> formats;
+
+    private V4l2Capabilities(boolean known, String name, List<Format> formats) {
+        this.known = known;
+        this.name = name;
+        this.formats = Collections.unmodifiableList(formats);
+    }
+
+    /**
+     * Gets the capabilities of a device node, probing it on first use.
+     * Probing spawns ffmpeg, so call this off the FX thread.
+     *
+     * @param devicePath The node, e.g. /dev/video0
+     * @return The capabilities; unknown if the probe could not run
+     */
+    public static V4l2Capabilities forDevice(String devicePath) {
+        V4l2Capabilities cached = cache.get(devicePath);
+        if (cached != null) {
+            return cached;
+        }
+        // Probe outside the map, so lookups of other nodes never wait on ffmpeg
+        V4l2Capabilities caps = probe(devicePath);
+        if (!caps.isKnown()) {
+            return caps; // Busy, no permission yet, or no ffmpeg: try again next time
+        }
+        V4l2Capabilities raced = cache.putIfAbsent(devicePath, caps);
+        return raced != null ? raced : caps;
+    }
+
+    /**
+     * Forgets the cached capabilities of a device node.
+     *
+     * @param devicePath The node
+     */
+    public static void invalidate(String devicePath) {
+        cache.remove(devicePath);
+    }
+
+    private static V4l2Capabilities probe(String devicePath) {
+        String name = sysfsName(devicePath);
+        ProcessBuilder pb = new ProcessBuilder("ffmpeg", "-hide_banner",
+                "-f", "v4l2", "-list_formats", "all", "-i", devicePath);
+        pb.redirectErrorStream(true);
+        try {
+            Process process = FFmpegProcesses.start(pb, name, "v4l2-probe");
+            AtomicBoolean timedOut = FFmpegProcesses.killAfter(process, PROBE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            List<String> lines;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                lines = reader.lines().toList();
+            }
+            process.waitFor();
+            if (timedOut.get()) {
+                System.err.println("[V4l2Capabilities] Probe of " + devicePath + " timed out");
+                return new V4l2Capabilities(false, name, List.of());
+            }
+            V4l2Capabilities caps = parse(name, lines);
+            if (!caps.isKnown()) {
+                System.err.println("[V4l2Capabilities] Cannot probe " + devicePath + ": "
+                        + (lines.isEmpty() ? "no output" : lines.get(lines.size() - 1)));
+                return caps;
+            }
+            System.out.println("[V4l2Capabilities] " + devicePath + " (" + name + "): "
+                    + (caps.isCapture() ? caps.formats.size() + " format(s)" : "not a capture device"));
+            return caps;
+        } catch (IOException e) {
+            System.err.println("[V4l2Capabilities] Cannot probe " + devicePath + ": " + e.getMessage());
+            return new V4l2Capabilities(false, name, List.of());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Parses {@code -list_formats all} output. Output without formats means a
+     * non-capture node only if ffmpeg says so; any other failure (permission
+     * denied, device busy, no v4l2 support) leaves the capabilities unknown.
+     *
+     * @param name Device name to record
+     * @param lines ffmpeg's output lines
+     * @return The parsed capabilities
+     */
+    static V4l2Capabilities parse(String name, List<String> lines) {
+        List<Format> formats = new ArrayList<>();
+        for (String line : lines) {
+            Matcher matcher = FORMAT_LINE.matcher(line);
+            if (!matcher.find()) {
+                continue;
+            }
+            String sizesText = matcher.group(4);
+            SizeRange range = null;
+            Matcher stepwise = STEPWISE.matcher(sizesText);
+            if (stepwise.find()) {
+                range = new SizeRange(Integer.parseInt(stepwise.group(1)), Integer.parseInt(stepwise.group(2)),
+                        Integer.parseInt(stepwise.group(3)), Integer.parseInt(stepwise.group(4)),
+                        Integer.parseInt(stepwise.group(5)), Integer.parseInt(stepwise.group(6)));
+                sizesText = stepwise.replaceAll("");
+            }
+            List<int[]> sizes = new ArrayList<>();
+            Matcher size = SIZE.matcher(sizesText);
+            while (size.find()) {
+                sizes.add(new int[]{Integer.parseInt(size.group(1)), Integer.parseInt(size.group(2))});
+            }
+            formats.add(new Format(matcher.group(2), "Compressed".equals(matcher.group(1)), List.copyOf(sizes), range));
+        }
+        if (formats.isEmpty() && lines.stream().noneMatch(line -> line.contains(NOT_CAPTURE))) {
+            return new V4l2Capabilities(false, name, List.of());
+        }
+        return new V4l2Capabilities(true, name, formats);
+    }
+
+    /**
+     * Reads the device name from sysfs, e.g. "HD Pro Webcam C920".
+     *
+     * @param devicePath The node, e.g. /dev/video0
+     * @return The name, or null if sysfs does not have it
+     */
+    static String sysfsName(String devicePath) {
+        return sysfsName(UsbBandwidthPlanner.getInstance().getSysfs(), devicePath);
+    }
+
+    /**
+     * Reads the device name from the given sysfs tree.
+     *
+     * @param sysfs sysfs mount point, normally /sys
+     * @param devicePath The node, e.g. /dev/video0
+     * @return The name, or null if sysfs does not have it
+     */
+    static String sysfsName(Path sysfs, String devicePath) {
+        Path file = sysfs.resolve("class/video4linux").resolve(Path.of(devicePath).getFileName().toString())
+                .resolve("name");
+        try {
+            String name = Files.readString(file).trim();
+            return name.isEmpty() ? null : name;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Tells whether the probe ran. Unknown capabilities say nothing about the device.
+     *
+     * @return true if the formats were probed
+     */
+    public boolean isKnown() {
+        return known;
+    }
+
+    /**
+     * Tells whether the node captures video. Unknown nodes are assumed to.
+     *
+     * @return false only for probed nodes without formats
+     */
+    public boolean isCapture() {
+        return !known || !formats.isEmpty();
+    }
+
+    /**
+     * Gets the device name from sysfs.
+     *
+     * @return The name, or null if unknown
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the probed formats.
+     *
+     * @return Formats in the order the driver lists them
+     */
+    public List<Format> getFormats() {
+        return formats;
+    }
+
+    /**
+     * Gets the native frame size closest to a request, in any format: the requested
+     * size if offered, else the smallest size covering it (so the image is only ever
+     * scaled down), else the largest size.
+     *
+     * @param width Requested width
+     * @param height Requested height
+     * @return [width, height]; the request itself when nothing was probed
+     */
+    public int[] closestSize(int width, int height) {
+        return closestSize(formats, width, height);
+    }
+
+    /**
+     * Tells whether the device offers a frame size in a given format.
+     *
+     * @param formatName ffmpeg's name for the format, e.g. mjpeg
+     * @param width Frame width
+     * @param height Frame height
+     * @return true if that exact size is offered in that format
+     */
+    public boolean offers(String formatName, int width, int height) {
+        for (Format format : formats) {
+            if (format.name().equals(formatName) && offers(format, new int[]{width, height})) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Chooses the format and size to capture in. With {@code preferred} "auto",
+     * uncompressed is used when its estimated bandwidth fits {@code budgetBytesPerSecond},
+     * otherwise MJPEG, otherwise H.264; a device offering no compressed format stays
+     * uncompressed. "raw", "mjpeg" or "h264" force that kind of format where offered.
+     *
+     * @param width Requested width
+     * @param height Requested height
+     * @param fps Frame rate to capture at
+     * @param budgetBytesPerSecond USB bandwidth this camera may use
+     * @param preferred auto, raw, mjpeg or h264
+     * @return The mode; for unknown devices the requested size in the default format
+     */
+    public InputMode selectInputMode(int width, int height, int fps, long budgetBytesPerSecond, String preferred) {
+        List<Format> raw = new ArrayList<>();
+        List<Format> compressed = new ArrayList<>();
+        for (String name : COMPRESSED_PREFERENCE) {
+            for (Format format : formats) {
+                if (format.compressed() && format.name().equals(name)) {
+                    compressed.add(format);
+                }
+            }
+        }
+        for (Format format : formats) {
+            if (!format.compressed()) {
+                raw.add(format);
+            }
+        }
+        if (raw.isEmpty() && compressed.isEmpty()) {
+            return new InputMode(null, false, width, height, fps, -1);
+        }
+
+        InputMode rawMode = raw.isEmpty() ? null : bestMode(raw, width, height, fps);
+        InputMode compressedMode = compressed.isEmpty() ? null : bestMode(compressed, width, height, fps);
+        if (preferred != null && !"auto".equals(preferred)) {
+            for (InputMode mode : new InputMode[]{rawMode, compressedMode}) {
+                if (mode != null && ("raw".equals(preferred) ? !mode.compressed() : preferred.equals(mode.format()))) {
+                    return mode;
+                }
+            }
+            if ("h264".equals(preferred) || "mjpeg".equals(preferred)) {
+                for (Format format : compressed) {
+                    if (format.name().equals(preferred)) {
+                        return modeFor(format, width, height, fps);
+                    }
+                }
+            }
+        }
+        if (rawMode != null && (compressedMode == null || rawMode.bytesPerSecond() <= budgetBytesPerSecond)) {
+            return rawMode;
+        }
+        return compressedMode;
+    }
+
+    /**
+     * Picks the format whose closest size is nearest the request, earlier formats winning ties.
+     */
+    private static InputMode bestMode(List<Format> candidates, int width, int height, int fps) {
+        int[] size = closestSize(candidates, width, height);
+        for (Format format : candidates) {
+            if (offers(format, size)) {
+                return new InputMode(format.name(), format.compressed(), size[0], size[1], fps,
+                        estimateBytesPerSecond(format, size[0], size[1], fps));
+            }
+        }
+        return modeFor(candidates.get(0), width, height, fps);
+    }
+
+    private static InputMode modeFor(Format format, int width, int height, int fps) {
+        int[] size = closestSize(List.of(format), width, height);
+        return new InputMode(format.name(), format.compressed(), size[0], size[1], fps,
+                estimateBytesPerSecond(format, size[0], size[1], fps));
+    }
+
+    private static boolean offers(Format format, int[] size) {
+        for (int[] offered : format.sizes()) {
+            if (offered[0] == size[0] && offered[1] == size[1]) {
+                return true;
+            }
+        }
+        if (format.range() != null) {
+            int[] clamped = format.range().clamp(size[0], size[1]);
+            return clamped[0] == size[0] && clamped[1] == size[1];
+        }
+        return false;
+    }
+
+    /**
+     * Estimates the USB bandwidth of a mode. Uncompressed sizes are exact; MJPEG is
+     * taken as about 0.2 bytes per pixel and H.264 as about 0.02, typical for webcams.
+     *
+     * @return Bytes per second
+     */
+    static long estimateBytesPerSecond(Format format, int width, int height, int fps) {
+        double bytesPerPixel = switch (format.name()) {
+            case "mjpeg" -> 0.2;
+            case "h264" -> 0.02;
+            case "nv12", "nv21", "yuv420p" -> 1.5;
+            case "rgb24", "bgr24" -> 3;
+            case "gray" -> 1;
+            default -> format.compressed() ? 0.2 : 2; // yuyv422 and the other packed 4:2:2 formats
+        };
+        return (long) ((double) width * height * fps * bytesPerPixel);
+    }
+
+    /**
+     * Same as {@link #closestSize(int, int)}, limited to the given formats.
+     */
+    static int[] closestSize(List<Format> candidates, int width, int height) {
+        int[] covering = null;
+        int[] largest = null;
+        for (Format format : candidates) {
+            List<int[]> sizes = new ArrayList<>(format.sizes());
+            if (format.range() != null) {
+                sizes.add(format.range().clamp(width, height));
+            }
+            for (int[] size : sizes) {
+                if (size[0] == width && size[1] == height) {
+                    return size;
+                }
+                long area = (long) size[0] * size[1];
+                if (size[0] >= width && size[1] >= height
+                        && (covering == null || area < (long) covering[0] * covering[1])) {
+                    covering = size;
+                }
+                if (largest == null || area > (long) largest[0] * largest[1]) {
+                    largest = size;
+                }
+            }
+        }
+        if (covering != null) {
+            return covering;
+        }
+        return largest != null ? largest : new int[]{width, height};
+    }
+}
@@ -35,7 +35,7 @@ public class WindowsCameraStrategy implements CameraStrategy {
             command.add("dummy");
             ProcessBuilder pb = new ProcessBuilder(command);
             pb.redirectErrorStream(true);
-            Process process = pb.start();
+            Process process = FFmpegProcesses.start(pb, null, "device-list");
 
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
 
@@ -72,20 +72,16 @@ public class WindowsCameraStrategy implements CameraStrategy {
         command.add(width + "x" + height);
         command.add("-i");
         command.add("video=" + deviceId);
-        command.add("-f");
-        command.add("rawvideo");
-        command.add("-pix_fmt");
-        command.add("rgb24");
-        command.add("-");
+        command.addAll(getRawPreviewOutputArguments());
+        // stdout carries the frames, so progress goes to stderr
+        FFmpegProgress.addArguments(command, 2);
 
         return new ProcessBuilder(command);
     }
 
     @Override
-    public boolean captureSnapshot(Camera camera, Settings settings) {
+    public ProcessBuilder buildSnapshotCommand(Camera camera, Settings settings, String outputPath) {
         // Use ffmpeg dshow for snapshot capture on Windows
-        String outputPath = settings.getSnapshotOutputDirectory() +"\\" + generateFilename(camera, settings.getFilenamePattern());
-
         String deviceName = camera.getDeviceId();
         
         // Get resolution from camera/settings - scale on output since virtual cameras
@@ -104,26 +100,32 @@ public class WindowsCameraStrategy implements CameraStrategy {
         command.add("-y"); // Overwrite output file
         command.add(outputPath);
 
-        ProcessBuilder pb = new ProcessBuilder(command);
+        // Progress on stderr feeds the snapshot metrics
+        FFmpegProgress.addArguments(command, 2);
 
-        try {
-            Process process = pb.start();
-            //capture output for debugging
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            String line;
-            while (settings.getVerboseOutput() && (line = reader.readLine()) != null) {
-                System.out.println(line);
-            }
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                System.err.println("FFmpeg failed to capture snapshot from " + camera.getName() + " with exit code " + exitCode);
-                return false;
-            }
-            return true;
-        } catch (Exception e) {
-            System.err.println("Error capturing snapshot from " + camera.getName() + ": " + e.getMessage());
-            return false;
-        }
+        return new ProcessBuilder(command);
+    }
+    
+    @Override
+    public ProcessBuilder buildRecordCommand(Camera camera, Settings settings, String outputPath, int seconds) {
+        // Record straight from DirectShow
+        int[] dimensions = getResolution(camera, settings);
+        int width = (dimensions != null) ? dimensions[0] : 640;
+        int height = (dimensions != null) ? dimensions[1] : 480;
+
+        List<String> command = new ArrayList<>(ffmpegDshow);
+        command.add("-video_size");
+        command.add(width + "x" + height);
+        command.add("-i");
+        command.add("video=" + camera.getDeviceId());
+        command.add("-t");
+        command.add(String.valueOf(seconds));
+        command.add("-c:v");
+        command.add("copy"); // Keep the device's own format for realistic replay
+        command.add("-y");
+        command.add(outputPath);
+
+        return new ProcessBuilder(command);
     }
     
     @Override
@@ -132,7 +134,8 @@ public class WindowsCameraStrategy implements CameraStrategy {
     }
 
     @Override
-    public ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath) {
+    public ProcessBuilder buildFFmpegHttpStreamCommand(Camera camera, Settings settings, int port, String hlsPath,
+                                                       HlsSegmentType segmentType) {
         String deviceId = camera.getDeviceId();
 
         // Build FFmpeg command to stream using HLS (HTTP Live Streaming)
@@ -148,17 +151,15 @@ public class WindowsCameraStrategy implements CameraStrategy {
         command.add("20M");
         command.add("-i");
         command.add("video=" + deviceId);
-        // Silent audio input (required by JavaFX HLS)
-        command.add("-f");
-        command.add("lavfi");
-        command.add("-i");
-        command.add("anullsrc=r=44100:cl=mono");
+        // Silent audio input (required by JavaFX HLS), pre-encoded and looped
+        command.addAll(SilentAudioTrack.getInputArguments());
         // Scale to reasonable preview size and set output framerate
         command.add("-vf");
         command.add("scale=640:-2");
         command.add("-r");
         command.add("15");
         
+        
         // Get encoder arguments from factory based on settings
         HardwareEncoderFactory.EncoderType encoderType = settings.getEncoderType();
         System.out.println("[WindowsCameraStrategy] Using encoder: " + encoderType.getDisplayName());
@@ -169,11 +170,8 @@ public class WindowsCameraStrategy implements CameraStrategy {
         command.add("-g");
         command.add("15");
         
-        // Audio encoding - AAC (required by JavaFX HLS)
-        command.add("-c:a");
-        command.add("aac");
-        command.add("-b:a");
-        command.add("64k");
+        // Audio - AAC (required by JavaFX HLS), copied from the cached track when available
+        command.addAll(SilentAudioTrack.getCodecArguments(segmentType));
         // HLS output settings for live streaming
         command.add("-f");
         command.add("hls");
@@ -181,12 +179,17 @@ public class WindowsCameraStrategy implements CameraStrategy {
         command.add("1");
         command.add("-hls_list_size");
         command.add("3");
-        command.add("-hls_flags");
-        command.add("delete_segments");
-        command.add("-hls_segment_filename");
-        command.add(hlsPath + "\\segment_%03d.ts");
+        String hlsFlags = FFmpegCapabilities.get().hlsFlags("delete_segments");
+        if (!hlsFlags.isEmpty()) {
+            command.add("-hls_flags");
+            command.add(hlsFlags);
+        }
+        command.addAll(segmentType.getMuxerArguments(hlsPath, "\\"));
         command.add(hlsPath + "\\stream.m3u8");
 
+        // Progress reports on stdout, which HLS output leaves free
+        FFmpegProgress.addArguments(command, 1);
+
         return new ProcessBuilder(command);
     }
 }
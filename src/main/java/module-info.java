@@ -5,6 +5,8 @@ module com.example.simplephototool {
     requires transitive javafx.base;
     requires transitive javafx.media;
     requires java.desktop;
+    requires java.management;
+    requires jdk.jfr;
     requires jdk.httpserver;
 
     opens com.example.simplephototool to javafx.fxml;
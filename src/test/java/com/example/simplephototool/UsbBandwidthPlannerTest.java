@@ -0,0 +1,124 @@
+package com.example.simplephototool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link UsbBandwidthPlanner} against a fake sysfs tree with two cameras on a
+ * USB 2.0 bus: the first with a capture and a metadata node, the second with one node.
+ */
+class UsbBandwidthPlannerTest {
+
+    private static final String YUYV =
+            "[video4linux2,v4l2 @ 0x1] Raw       :     yuyv422 :           YUYV 4:2:2 : 1280x720 640x480 320x240";
+    private static final String MJPEG =
+            "[video4linux2,v4l2 @ 0x1] Compressed:       mjpeg :          Motion-JPEG : 1280x720 640x480 320x240";
+
+    @TempDir
+    Path sysfs;
+
+    private UsbBandwidthPlanner planner;
+
+    @BeforeEach
+    void createSysfs() throws IOException {
+        Path usb1 = Files.createDirectories(sysfs.resolve("devices/pci0000:00/0000:00:14.0/usb1"));
+        Files.writeString(usb1.resolve("speed"), "480\n");
+        Files.createDirectories(sysfs.resolve("bus/usb/devices"));
+        Files.createSymbolicLink(sysfs.resolve("bus/usb/devices/usb1"), usb1);
+
+        Path first = Files.createDirectories(usb1.resolve("1-2/1-2:1.0"));
+        Path second = Files.createDirectories(usb1.resolve("1-3/1-3:1.0"));
+        addNode("video0", first, "HD Pro Webcam C920");
+        addNode("video1", first, "HD Pro Webcam C920");
+        addNode("video2", second, "USB 2.0 Camera");
+
+        planner = new UsbBandwidthPlanner(sysfs);
+    }
+
+    private void addNode(String node, Path device, String name) throws IOException {
+        Path dir = Files.createDirectories(sysfs.resolve("class/video4linux").resolve(node));
+        Files.createSymbolicLink(dir.resolve("device"), device);
+        Files.writeString(dir.resolve("name"), name + "\n");
+    }
+
+    @Test
+    void busForReadsControllerAndSpeed() {
+        UsbBandwidthPlanner.Bus bus = planner.busFor("/dev/video0");
+        assertNotNull(bus);
+        assertEquals("usb1", bus.controller());
+        assertEquals(480, bus.speedMbps());
+        assertEquals(UsbBandwidthPlanner.capacity(480), bus.capacityBytesPerSecond());
+        assertEquals("usb1", planner.controllerFor("/dev/video2"));
+    }
+
+    @Test
+    void busForIgnoresUnknownNodes() {
+        assertNull(planner.busFor("/dev/video9"));
+        assertNull(planner.busFor("rtsp://camera/stream"));
+        assertEquals("/dev/video9", planner.controllerFor("/dev/video9"));
+    }
+
+    @Test
+    void camerasOnCountsMetadataNodesOnce() {
+        assertEquals(2, planner.camerasOn(planner.busFor("/dev/video0")));
+    }
+
+    @Test
+    void planDegradesRawPreviewToFit() {
+        V4l2Capabilities capabilities = V4l2Capabilities.parse("HD Pro Webcam C920", List.of(YUYV));
+
+        UsbBandwidthPlanner.Plan plan = planner.plan("/dev/video0", capabilities, 1280, 720, 30,
+                UsbBandwidthPlanner.Use.PREVIEW, "auto");
+
+        // 40 MB/s, 25% kept for snapshots, shared by two cameras
+        assertEquals(15_000_000, plan.budgetBytesPerSecond());
+        assertTrue(plan.degraded());
+        assertTrue(plan.fits());
+        assertEquals(320, plan.mode().width());
+        assertEquals(240, plan.mode().height());
+        assertEquals(30, plan.mode().fps());
+    }
+
+    @Test
+    void planKeepsCaptureSize() {
+        V4l2Capabilities capabilities = V4l2Capabilities.parse("HD Pro Webcam C920", List.of(YUYV));
+
+        UsbBandwidthPlanner.Plan plan = planner.plan("/dev/video0", capabilities, 1280, 720, 30,
+                UsbBandwidthPlanner.Use.CAPTURE, "auto");
+
+        assertEquals(20_000_000, plan.budgetBytesPerSecond());
+        assertFalse(plan.degraded());
+        assertFalse(plan.fits());
+        assertEquals(1280, plan.mode().width());
+    }
+
+    @Test
+    void planSwitchesToCompressedBeforeDegrading() {
+        V4l2Capabilities capabilities = V4l2Capabilities.parse("HD Pro Webcam C920", List.of(YUYV, MJPEG));
+
+        UsbBandwidthPlanner.Plan plan = planner.plan("/dev/video0", capabilities, 1280, 720, 30,
+                UsbBandwidthPlanner.Use.PREVIEW, "auto");
+
+        assertFalse(plan.degraded());
+        assertEquals("mjpeg", plan.mode().format());
+        assertEquals(1280, plan.mode().width());
+    }
+
+    @Test
+    void sysfsNameReadsTheSameRoot() {
+        assertEquals("HD Pro Webcam C920", V4l2Capabilities.sysfsName(sysfs, "/dev/video0"));
+        assertNull(V4l2Capabilities.sysfsName(sysfs, "/dev/video9"));
+    }
+}